@@ -0,0 +1,204 @@
+/*
+ * This class holds the tables and small helpers used by the bitboard core of
+ * the board. A bitboard is a single long where bit i stands for square i on
+ * the board. Squares are numbered from a1 = 0, b1 = 1, ... up to h8 = 63, so
+ * the file of a square is its index mod 8 and the rank is its index / 8.
+ * All tables are computed once when the class is loaded; looking up a table
+ * entry is far cheaper than walking the board square by square.
+ * 
+ * Sliding pieces use precomputed rays: the squares in one direction from a
+ * square on an empty board. The first piece on a ray (lowest bit for the
+ * directions going up the board, highest for those going down) blocks it,
+ * and removing that piece's own ray beyond it gives the attacks.
+ */
+public class Bitboards implements chessInterface {
+
+	// Squares a knight on each square can jump to
+	public final static long[] KNIGHT_ATTACKS = new long[numSquares];
+	// Squares a king on each square can step to
+	public final static long[] KING_ATTACKS = new long[numSquares];
+	// Squares a pawn on each square attacks: first index is the side of the
+	// pawn (WHITE_SIDE or BLACK_SIDE)
+	public final static long[][] PAWN_ATTACKS = new long[numPlayers][numSquares];
+	// Every square on the same rank or file as each square (empty board)
+	public final static long[] ROOK_LINES = new long[numSquares];
+	// Every square on the same diagonals as each square (empty board)
+	public final static long[] BISHOP_LINES = new long[numSquares];
+	// Squares strictly between two squares on the same rank, file or
+	// diagonal; 0 if they share none or are next to each other
+	public final static long[][] BETWEEN = new long[numSquares][numSquares];
+	// Every square of each file, and of the files next to it
+	public final static long[] FILES = new long[numColumns];
+	public final static long[] ADJACENT_FILES = new long[numColumns];
+	// Squares ahead of each square on its file, for a pawn of each side
+	public final static long[][] FRONT_SPANS = new long[numPlayers][numSquares];
+	// Squares ahead of each square on its file and the files next to it: a
+	// pawn with no enemy pawn there is passed
+	public final static long[][] PASSED_PAWN_MASKS = new long[numPlayers][numSquares];
+	// The three squares in front of a king of each side on each square and
+	// the three in front of those: where its pawn shield stands
+	public final static long[][] PAWN_SHIELDS = new long[numPlayers][numSquares];
+	
+	// Rays from each square in each direction (empty board). The first four
+	// directions go up the board (square index grows), the last four down.
+	private final static int numDirections = 8;
+	private final static int NORTH = 0;
+	private final static int EAST = 1;
+	private final static int NORTH_EAST = 2;
+	private final static int NORTH_WEST = 3;
+	private final static int SOUTH = 4;
+	private final static int WEST = 5;
+	private final static int SOUTH_WEST = 6;
+	private final static int SOUTH_EAST = 7;
+	private final static int[][] RAY_STEPS = {{0,1}, {1,0}, {1,1}, {-1,1},
+											  {0,-1}, {-1,0}, {-1,-1}, {1,-1}};
+	private final static long[][] RAYS = new long[numDirections][numSquares];
+
+	private final static int[][] KNIGHT_STEPS = {{1,2}, {2,1}, {2,-1}, {1,-2},
+												 {-1,-2}, {-2,-1}, {-2,1}, {-1,2}};
+	private final static int[][] KING_STEPS = {{-1,1}, {-1,0}, {-1,-1}, {0,-1},
+											   {0,1}, {1,-1}, {1,0}, {1,1}};
+
+	static {
+		for (int sq = 0; sq < numSquares; sq++) {
+			FILES[file(sq)] |= bit(sq);
+		}
+		for (int file = 0; file < numColumns; file++) {
+			ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < numColumns - 1 ? FILES[file + 1] : 0);
+		}
+		for (int sq = 0; sq < numSquares; sq++) {
+			int file = file(sq);
+			int rank = rank(sq);
+			KNIGHT_ATTACKS[sq] = stepMask(file, rank, KNIGHT_STEPS);
+			KING_ATTACKS[sq] = stepMask(file, rank, KING_STEPS);
+			PAWN_ATTACKS[WHITE_SIDE][sq] = stepMask(file, rank, new int[][] {{-1,1}, {1,1}});
+			PAWN_ATTACKS[BLACK_SIDE][sq] = stepMask(file, rank, new int[][] {{-1,-1}, {1,-1}});
+			for (int dir = 0; dir < numDirections; dir++) {
+				int f = file + RAY_STEPS[dir][0];
+				int r = rank + RAY_STEPS[dir][1];
+				while (onBoard(f, r)) {
+					int target = square(f, r);
+					BETWEEN[sq][target] = RAYS[dir][sq];
+					RAYS[dir][sq] |= bit(target);
+					f += RAY_STEPS[dir][0];
+					r += RAY_STEPS[dir][1];
+				}
+			}
+			ROOK_LINES[sq] = RAYS[NORTH][sq] | RAYS[EAST][sq] | RAYS[SOUTH][sq] | RAYS[WEST][sq];
+			BISHOP_LINES[sq] = RAYS[NORTH_EAST][sq] | RAYS[NORTH_WEST][sq] | RAYS[SOUTH_WEST][sq] | RAYS[SOUTH_EAST][sq];
+			FRONT_SPANS[WHITE_SIDE][sq] = RAYS[NORTH][sq];
+			FRONT_SPANS[BLACK_SIDE][sq] = RAYS[SOUTH][sq];
+		}
+		for (int sq = 0; sq < numSquares; sq++) {
+			long files = FILES[file(sq)] | ADJACENT_FILES[file(sq)];
+			for (int side = WHITE_SIDE; side <= BLACK_SIDE; side++) {
+				// The front span of a square spreads to the files next to it
+				// from the squares beside it
+				long span = FRONT_SPANS[side][sq];
+				PASSED_PAWN_MASKS[side][sq] = (span | (span << 1) | (span >>> 1)) & files;
+				int forward = side == WHITE_SIDE ? 1 : -1;
+				for (int ahead = 1; ahead <= 2; ahead++) {
+					int r = rank(sq) + forward * ahead;
+					for (int f = file(sq) - 1; f <= file(sq) + 1; f++) {
+						if (onBoard(f, r)) {
+							PAWN_SHIELDS[side][sq] |= bit(square(f, r));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns every square a rook on the square passed in attacks, given the
+	 * occupied squares: each ray stops at the first piece it meets, and that
+	 * piece's square is included.
+	 */
+	public static long rookAttacks(int square, long occupied) {
+		return ray(NORTH, square, occupied) | ray(EAST, square, occupied)
+			| ray(SOUTH, square, occupied) | ray(WEST, square, occupied);
+	}
+
+	/*
+	 * Same as rookAttacks, along the diagonals.
+	 */
+	public static long bishopAttacks(int square, long occupied) {
+		return ray(NORTH_EAST, square, occupied) | ray(NORTH_WEST, square, occupied)
+			| ray(SOUTH_WEST, square, occupied) | ray(SOUTH_EAST, square, occupied);
+	}
+	
+	/*
+	 * Returns the squares attacked along one ray, up to and including the
+	 * first piece met.
+	 */
+	private static long ray(int dir, int square, long occupied) {
+		long attacks = RAYS[dir][square];
+		long blockers = attacks & occupied;
+		if (blockers != 0) {
+			int blocker = dir < SOUTH ? first(blockers) : last(blockers);
+			attacks ^= RAYS[dir][blocker];
+		}
+		return attacks;
+	}
+
+	/*
+	 * Returns the bitboard with only the bit of the square passed in set.
+	 */
+	public static long bit(int square) {
+		return 1L << square;
+	}
+
+	/*
+	 * Returns the file (0 for a, 7 for h) of the square passed in.
+	 */
+	public static int file(int square) {
+		return square & 7;
+	}
+
+	/*
+	 * Returns the rank (0 for rank 1, 7 for rank 8) of the square passed in.
+	 */
+	public static int rank(int square) {
+		return square >>> 3;
+	}
+
+	/*
+	 * Returns the square index of the given file and rank, both zero based.
+	 */
+	public static int square(int file, int rank) {
+		return rank * numColumns + file;
+	}
+
+	/*
+	 * Returns the index of the lowest square set in the bitboard passed in.
+	 * The bitboard must not be empty.
+	 */
+	public static int first(long bitboard) {
+		return Long.numberOfTrailingZeros(bitboard);
+	}
+	
+	/*
+	 * Returns the index of the highest square set in the bitboard passed in.
+	 * The bitboard must not be empty.
+	 */
+	public static int last(long bitboard) {
+		return numSquares - 1 - Long.numberOfLeadingZeros(bitboard);
+	}
+
+	private static boolean onBoard(int file, int rank) {
+		return file >= 0 && file < numColumns && rank >= 0 && rank < numRows;
+	}
+
+	/*
+	 * Builds the mask of every square one step away in the given directions.
+	 */
+	private static long stepMask(int file, int rank, int[][] steps) {
+		long mask = 0;
+		for (int[] step : steps) {
+			if (onBoard(file + step[0], rank + step[1])) {
+				mask |= bit(square(file + step[0], rank + step[1]));
+			}
+		}
+		return mask;
+	}
+}
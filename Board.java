@@ -2,20 +2,42 @@
  * This is the class for the board. All pieces are tracked here, and the getter
  * methods used by other classes are also implemented here. One important 
  * feature of this class is the way in which the check for checkmate is
- * implemented. An internal clock for whose turn it is is created in order to
- * simulate player turns before they occur. If a check occurs, the program
- * must check to see if the game is over (checkmate). It does this by changing
- * the player turn first, so now the player who is being checked must move,
- * according to the internal program clock, at least. By doing this, the program
- * can play different scenarios to see if the player can block or remove the
- * check. At the end of this simulation, either the internal clock is restored
- * to the masterWhiteTurn clock, which didn't change during the simulation,
- * or the game is over and STATS are displayed.
+ * implemented. An internal clock for whose turn it is is kept apart from the
+ * master clock in order to simulate player turns before they occur. Moves
+ * are tried out with makeMove, which flips the internal clock, and taken back
+ * with unmakeMove, which flips it back; the master clock only changes when a
+ * move is really played (playMove). If a check occurs, the program checks to
+ * see if the game is over by asking the move generator for the legal moves
+ * of the player being checked.
+ * 
+ * The position itself is kept in a bitboard core: one long per piece type and
+ * color, an occupancy mask per color and a mailbox of piece codes indexed by
+ * square. The squares and pieces are only a view of that core, used by the
+ * GUI and the text interface; every change to a square goes through the core
+ * first, and queries like getPiece are answered from the bitboards.
+ * 
+ * The core also keeps a 64-bit key of the position (see Zobrist), updated
+ * with a few XORs whenever a piece is put down or picked up, the castling
+ * rights or en passant square change, or the turn passes. A second key
+ * covers the pawns alone (see PawnTable). The sums behind the static
+ * evaluation (see Evaluation) are kept the same way.
+ * 
+ * makeMove and unmakeMove only touch the core. Everything unmakeMove needs is
+ * pushed on an undo stack made of preallocated int arrays (the move, the
+ * piece captured, the castling rights, the en passant square and the
+ * halfmove clock before the move), so trying a move out and taking it back
+ * costs a handful of array writes and never makes an object.
+ * 
+ * Everything about a game is kept in its board (and the pieces made for it),
+ * the moves played so far included (the move log, which PgnWriter writes
+ * games out from), none of it in static fields, so one program can play any
+ * number of games at once, each on its own board. A board is not safe to
+ * share between threads; GameSession makes sure only one thread at a time
+ * uses its board.
  */
 import java.util.ArrayList;
-import java.util.Observable;
-@SuppressWarnings("deprecation")
-public class Board extends Observable implements chessInterface {
+import java.util.Arrays;
+public class Board implements chessInterface {
 
 	public final Square[][] board;
 	public ArrayList<Piece> piecesOnBoard;
@@ -24,7 +46,79 @@ public class Board extends Observable implements chessInterface {
 	public boolean realMove;
 	public boolean isCheckmate;
 	public boolean isStalemate;
-	public Piece enPassantPawn;
+	// Square a pawn can be taken on en passant by the player moving, EMPTY if
+	// there is none
+	public int enPassantSquare;
+	// One bitboard per piece code (see chessInterface)
+	public final long[] bitboards;
+	// All pieces of each side, indexed by WHITE_SIDE and BLACK_SIDE
+	public final long[] occupancy;
+	public long occupied;
+	// Piece code on each square, EMPTY if there is none
+	public final int[] mailbox;
+	// Castling rights still held (WHITE_KINGSIDE, ... see chessInterface).
+	// Changing this or enPassantSquare by hand leaves zobristKey out of date;
+	// call computeZobristKey afterwards.
+	public int castlingRights;
+	// Moves made since the last capture or pawn move (for the fifty move
+	// rule), and the number of the move being played, starting at 1 and
+	// going up after each move of black's, as in FEN
+	public int halfmoveClock;
+	public int fullmoveNumber;
+	// Key of the position: pieces, castling rights, en passant square and
+	// the player moving (internalWhiteTurn)
+	public long zobristKey;
+	// Key of the pawns alone (see Zobrist.PAWN_SQUARE), for the pawn table
+	public long pawnKey;
+	// Evaluation sums of the position (see Evaluation): midgame and endgame
+	// scores, white's minus black's, and the game phase
+	public int midgame;
+	public int endgame;
+	public int phase;
+	// Scratch buffer for the board's own move generation
+	private final int[] moveBuffer;
+	// Gains of each capture in a static exchange evaluation
+	private final int[] seeGain;
+	// Undo stack, one entry per move made on the core and not taken back
+	private final int[] undoMoves;
+	private final int[] undoCaptured;
+	private final int[] undoCastling;
+	private final int[] undoEnPassant;
+	private final int[] undoHalfmoves;
+	private final long[] undoKeys;
+	private int undoDepth;
+	// Moves played in the game (playMove) since it was set up, packed as in
+	// Move, and the position it was set up from as given to setUpPosition,
+	// null for the usual start position
+	private int[] moveLog;
+	private int plyCount;
+	public String startPosition;
+	private final static int initialMoveLog = 128;
+	// Castling rights kept when a piece moves from or to each square: moving
+	// a king or rook, or taking a rook in its corner, drops the rights tied
+	// to that square.
+	private final static int[] CASTLING_MASK = new int[numSquares];
+	// Piece letters of FEN, white's, indexed by piece type; and the castling
+	// rights, indexed by bit (WHITE_KINGSIDE is bit 0, ...)
+	private final static String FEN_PIECES = "PNBRQK";
+	private final static String CASTLING_LETTERS = "KQkq";
+	// The squares of the first row
+	private final static long FIRST_ROW = 0xFFL;
+	// Value of the king in a static exchange evaluation: more than anything
+	// it could win
+	private final static int seeKingValue = 20000;
+	
+	static {
+		for (int i = 0; i < numSquares; i++) {
+			CASTLING_MASK[i] = ALL_CASTLING;
+		}
+		CASTLING_MASK[Bitboards.square(0, 0)] &= ~WHITE_QUEENSIDE;
+		CASTLING_MASK[Bitboards.square(numColumns - 1, 0)] &= ~WHITE_KINGSIDE;
+		CASTLING_MASK[Bitboards.square(4, 0)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+		CASTLING_MASK[Bitboards.square(0, numRows - 1)] &= ~BLACK_QUEENSIDE;
+		CASTLING_MASK[Bitboards.square(numColumns - 1, numRows - 1)] &= ~BLACK_KINGSIDE;
+		CASTLING_MASK[Bitboards.square(4, numRows - 1)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+	}
 	
 	public Board() {
 		board = new Square [numRows][numColumns];
@@ -33,239 +127,1021 @@ public class Board extends Observable implements chessInterface {
 			for (int j = 0; j < numColumns; j++) {
 				char letter = (char) (j + firstLetter);
 				String name = letter + "" + actual;
-				board[i][j] = new Square(name);
+				board[i][j] = new Square(name, Bitboards.square(j, actual - 1), this);
 			}
 			actual--;
 		}
+		bitboards = new long[numPlayers * numPieceTypes];
+		occupancy = new long[numPlayers];
+		mailbox = new int[numSquares];
+		for (int i = 0; i < numSquares; i++) {
+			mailbox[i] = EMPTY;
+		}
+		castlingRights = ALL_CASTLING;
+		enPassantSquare = EMPTY;
+		halfmoveClock = 0;
+		fullmoveNumber = 1;
+		moveBuffer = new int[maxMoves];
+		seeGain = new int[numSquares];
+		undoMoves = new int[maxPly];
+		undoCaptured = new int[maxPly];
+		undoCastling = new int[maxPly];
+		undoEnPassant = new int[maxPly];
+		undoHalfmoves = new int[maxPly];
+		undoKeys = new long[maxPly];
+		undoDepth = 0;
+		moveLog = new int[initialMoveLog];
+		plyCount = 0;
 		piecesOnBoard = new ArrayList<>();
 		internalWhiteTurn = true;
 		masterWhiteTurn = true;
+		zobristKey = computeZobristKey();
 		realMove = REAL_MOVE;
-//		addObserver(new Player("white"));
-//		addObserver(new Player("black"));
-	}
-	
-	// Only for randomized play
-//	public void changed(String move) {
-//		//System.out.println("Inside board.changed");
-//		// Move was just made. Let's update the board
-//		if (move != null) {
-//			Chess_GUI.TilePanel t = Chess_Engine.mainGUI.boardPanel.getTile(move);
-//			assert t != null;
-//			t.changed();
-//		}
-//		// The board just got updated. We have to notify the next player so it
-//		// can make its move
-//		setChanged();
-//		String turn = masterWhiteTurn ? "white" : "black";
-//		System.out.println(this);
-//		notifyObservers(turn);
-//	}
+	}
 	
-	/*  
-	 *  This method will update only pieces of the player who has just moved and
-	 *  their hypothetical capture of the king; it will also return true or false
-	 *  depending on whether a check was made
+	/*
+	 * Makes a copy of the bitboard core of the board passed in: the position,
+	 * castling rights, en passant square, key and turns. The copy has no
+	 * pieces on its squares (only the core is copied), an empty undo stack
+	 * and an empty move log. It is meant for searching on another thread.
 	 */
-	public boolean isPieceChecking(boolean whiteT) {
-		boolean check = false;
-		int index = 0;
-		while (index < piecesOnBoard.size() && !check) {
-			Piece p = piecesOnBoard.get(index);
-			if (p.isWhite == !whiteT) {
-				p.updateCaptureKing();
-				check = p.isChecking;
+	public Board(Board other) {
+		this();
+		copyPosition(other);
+	}
+	
+	/*
+	 * Copies the bitboard core of the board passed in into this one, as the
+	 * copy constructor does, and empties the undo stack. The squares and
+	 * pieces and the move log are left as they are.
+	 */
+	public void copyPosition(Board other) {
+		System.arraycopy(other.bitboards, 0, bitboards, 0, bitboards.length);
+		System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+		System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+		occupied = other.occupied;
+		castlingRights = other.castlingRights;
+		enPassantSquare = other.enPassantSquare;
+		halfmoveClock = other.halfmoveClock;
+		fullmoveNumber = other.fullmoveNumber;
+		internalWhiteTurn = other.internalWhiteTurn;
+		masterWhiteTurn = other.masterWhiteTurn;
+		isCheckmate = other.isCheckmate;
+		isStalemate = other.isStalemate;
+		zobristKey = other.zobristKey;
+		pawnKey = other.pawnKey;
+		midgame = other.midgame;
+		endgame = other.endgame;
+		phase = other.phase;
+		undoDepth = 0;
+	}
+	
+	/*
+	 * Returns the piece code for the piece type and color passed in. Piece
+	 * codes index the bitboards and the mailbox.
+	 */
+	public static int pieceCode(int type, boolean white) {
+		return white ? type : type + numPieceTypes;
+	}
+	
+	/*
+	 * Returns the piece type (PAWN, KNIGHT, ...) for the piece name used by
+	 * the text interface.
+	 */
+	public static int pieceType(char name) {
+		switch (name) {
+			case pawnName: return PAWN;
+			case knightName: return KNIGHT;
+			case bishopName: return BISHOP;
+			case rookName: return ROOK;
+			case queenName: return QUEEN;
+			case kingName: return KING;
+			default: throw new IllegalArgumentException("Unknown piece " + name);
+		}
+	}
+	
+	/*
+	 * Puts the piece code passed in on the square in the bitboard core. The
+	 * square must be empty in the core.
+	 */
+	public void putPiece(int code, int square) {
+		long bit = Bitboards.bit(square);
+		bitboards[code] |= bit;
+		occupancy[code < numPieceTypes ? WHITE_SIDE : BLACK_SIDE] |= bit;
+		occupied |= bit;
+		mailbox[square] = code;
+		zobristKey ^= Zobrist.PIECE_SQUARE[code][square];
+		pawnKey ^= Zobrist.PAWN_SQUARE[code][square];
+		midgame += Evaluation.MIDGAME[code][square];
+		endgame += Evaluation.ENDGAME[code][square];
+		phase += Evaluation.PHASE[code];
+	}
+	
+	/*
+	 * Clears the square in the bitboard core, whatever piece is on it.
+	 */
+	public void clearSquare(int square) {
+		int code = mailbox[square];
+		if (code == EMPTY) {
+			return;
+		}
+		long bit = ~Bitboards.bit(square);
+		bitboards[code] &= bit;
+		occupancy[code < numPieceTypes ? WHITE_SIDE : BLACK_SIDE] &= bit;
+		occupied &= bit;
+		mailbox[square] = EMPTY;
+		zobristKey ^= Zobrist.PIECE_SQUARE[code][square];
+		pawnKey ^= Zobrist.PAWN_SQUARE[code][square];
+		midgame -= Evaluation.MIDGAME[code][square];
+		endgame -= Evaluation.ENDGAME[code][square];
+		phase -= Evaluation.PHASE[code];
+	}
+	
+	/*
+	 * Returns the square the king of the given color stands on.
+	 */
+	public int kingSquare(boolean white) {
+		return Bitboards.first(bitboards[pieceCode(KING, white)]);
+	}
+	
+	/*
+	 * Makes the move passed in (a packed move from generateLegalMoves) on the
+	 * bitboard core and hands the internal clock to the other player. The
+	 * move must be legal. The squares and pieces are not touched; see
+	 * playMove for that. O(1), and nothing is allocated.
+	 */
+	public void makeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int flags = Move.flags(move);
+		int code = mailbox[from];
+		boolean white = code < numPieceTypes;
+		int capturedSquare = (flags & Move.EN_PASSANT) != 0 ? to + (white ? -numColumns : numColumns) : to;
+		// Save what is needed to take the move back
+		undoMoves[undoDepth] = move;
+		undoCaptured[undoDepth] = mailbox[capturedSquare];
+		undoCastling[undoDepth] = castlingRights;
+		undoEnPassant[undoDepth] = enPassantSquare;
+		undoHalfmoves[undoDepth] = halfmoveClock;
+		undoKeys[undoDepth] = zobristKey;
+		undoDepth++;
+		halfmoveClock = code == pieceCode(PAWN, white) || (flags & Move.CAPTURE) != 0 ? 0 : halfmoveClock + 1;
+		if (!white) {
+			fullmoveNumber++;
+		}
+		// Move the piece, taking whatever it captures off the board first
+		if ((flags & Move.CAPTURE) != 0) {
+			clearSquare(capturedSquare);
+		}
+		clearSquare(from);
+		putPiece(Move.promotion(move) != 0 ? pieceCode(Move.promotion(move), white) : code, to);
+		// When castling, the rook jumps over to the other side of the king
+		if ((flags & Move.CASTLING) != 0) {
+			int rookFrom = to > from ? to + 1 : to - 2;
+			int rookTo = to > from ? to - 1 : to + 1;
+			clearSquare(rookFrom);
+			putPiece(pieceCode(ROOK, white), rookTo);
+		}
+		zobristKey ^= Zobrist.CASTLING[castlingRights];
+		castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+		zobristKey ^= Zobrist.CASTLING[castlingRights];
+		if (enPassantSquare != EMPTY) {
+			zobristKey ^= Zobrist.EN_PASSANT[Bitboards.file(enPassantSquare)];
+		}
+		enPassantSquare = (flags & Move.DOUBLE_PUSH) != 0 ? (from + to) / 2 : EMPTY;
+		if (enPassantSquare != EMPTY) {
+			zobristKey ^= Zobrist.EN_PASSANT[Bitboards.file(enPassantSquare)];
+		}
+		internalWhiteTurn = !internalWhiteTurn;
+		zobristKey ^= Zobrist.BLACK_TO_MOVE;
+	}
+	
+	/*
+	 * Takes back the last move made with makeMove, restoring the core exactly
+	 * as it was, and hands the internal clock back.
+	 */
+	public void unmakeMove() {
+		undoDepth--;
+		int move = undoMoves[undoDepth];
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int flags = Move.flags(move);
+		internalWhiteTurn = !internalWhiteTurn;
+		boolean white = internalWhiteTurn;
+		// A promoted piece goes back as a pawn
+		int code = Move.promotion(move) != 0 ? pieceCode(PAWN, white) : mailbox[to];
+		clearSquare(to);
+		putPiece(code, from);
+		int captured = undoCaptured[undoDepth];
+		if (captured != EMPTY) {
+			putPiece(captured, (flags & Move.EN_PASSANT) != 0 ? to + (white ? -numColumns : numColumns) : to);
+		}
+		if ((flags & Move.CASTLING) != 0) {
+			int rookFrom = to > from ? to + 1 : to - 2;
+			int rookTo = to > from ? to - 1 : to + 1;
+			clearSquare(rookTo);
+			putPiece(pieceCode(ROOK, white), rookFrom);
+		}
+		castlingRights = undoCastling[undoDepth];
+		enPassantSquare = undoEnPassant[undoDepth];
+		halfmoveClock = undoHalfmoves[undoDepth];
+		if (!white) {
+			fullmoveNumber--;
+		}
+		zobristKey = undoKeys[undoDepth];
+	}
+	
+	/*
+	 * Passes the turn to the other player without moving anything (a null
+	 * move, which only a search makes: no rule allows it). The en passant
+	 * square is dropped. Must be taken back with unmakeNullMove.
+	 */
+	public void makeNullMove() {
+		undoMoves[undoDepth] = Move.NONE;
+		undoCaptured[undoDepth] = EMPTY;
+		undoCastling[undoDepth] = castlingRights;
+		undoEnPassant[undoDepth] = enPassantSquare;
+		undoKeys[undoDepth] = zobristKey;
+		undoDepth++;
+		if (enPassantSquare != EMPTY) {
+			zobristKey ^= Zobrist.EN_PASSANT[Bitboards.file(enPassantSquare)];
+			enPassantSquare = EMPTY;
+		}
+		internalWhiteTurn = !internalWhiteTurn;
+		zobristKey ^= Zobrist.BLACK_TO_MOVE;
+	}
+	
+	public void unmakeNullMove() {
+		undoDepth--;
+		internalWhiteTurn = !internalWhiteTurn;
+		enPassantSquare = undoEnPassant[undoDepth];
+		zobristKey = undoKeys[undoDepth];
+	}
+	
+	/*
+	 * Returns true if the player of the given color has a piece other than
+	 * pawns and the king. Without one, zugzwang (every move makes things
+	 * worse) is common, so a search should not assume that passing is the
+	 * worst it can do.
+	 */
+	public boolean hasNonPawnMaterial(boolean white) {
+		return (occupancy[white ? WHITE_SIDE : BLACK_SIDE]
+			& ~(bitboards[pieceCode(PAWN, white)] | bitboards[pieceCode(KING, white)])) != 0;
+	}
+	
+	/*
+	 * Computes the key of the position from scratch. The board keeps
+	 * zobristKey up to date by itself; this is for setting it after the
+	 * position was changed by hand, and for checking it.
+	 */
+	public long computeZobristKey() {
+		long key = 0;
+		for (int sq = 0; sq < numSquares; sq++) {
+			if (mailbox[sq] != EMPTY) {
+				key ^= Zobrist.PIECE_SQUARE[mailbox[sq]][sq];
 			}
-			index++;
 		}
-		King k = (King) (getPiece(kingName, whiteT, null));
-		k.isChecked = check;
-		return check;
+		key ^= Zobrist.CASTLING[castlingRights];
+		if (enPassantSquare != EMPTY) {
+			key ^= Zobrist.EN_PASSANT[Bitboards.file(enPassantSquare)];
+		}
+		if (!internalWhiteTurn) {
+			key ^= Zobrist.BLACK_TO_MOVE;
+		}
+		return key;
 	}
 	
-	public boolean isStaleMate() {
-		// For a player to be in stalemate, they first cannot be in check. Let's
-		// make sure. Grab the king of the player moving and check to see if it
-		// is in check.
-		King k = (King) getPiece(kingName, internalWhiteTurn, null);
-		if (k.isChecked) {
-			return false;
+	/*
+	 * Plays the move passed in for real: the move is made on the core, the
+	 * squares and pieces are brought in line with it, the master clock moves
+	 * on to the next player and the end of the game is checked for. A move
+	 * played in the game is never taken back, so the undo stack is emptied.
+	 */
+	public void playMove(int move) {
+		Square from = getSquare(Move.from(move));
+		Square to = getSquare(Move.to(move));
+		Piece mover = from.occupiedBy;
+		Piece captured = null;
+		if ((Move.flags(move) & Move.EN_PASSANT) != 0) {
+			captured = getSquare(Move.to(move) + (mover.isWhite ? -numColumns : numColumns)).occupiedBy;
+		}
+		else if (Move.isCapture(move)) {
+			captured = to.occupiedBy;
+		}
+		makeMove(move);
+		undoDepth = 0;
+		if (plyCount == moveLog.length) {
+			moveLog = Arrays.copyOf(moveLog, plyCount * 2);
+		}
+		moveLog[plyCount++] = move;
+		
+		// Bring the view in line with the core
+		if (captured != null) {
+			captured.position.occupiedBy = null;
+			captured.onBoard = false;
+			piecesOnBoard.remove(captured);
+		}
+		from.occupiedBy = null;
+		if (Move.promotion(move) != 0) {
+			// The pawn leaves the board and the piece it became takes its place
+			mover.onBoard = false;
+			piecesOnBoard.remove(mover);
+			newPiece(Move.promotion(move), mover.isWhite, to.index);
+		}
+		else {
+			to.occupiedBy = mover;
+			mover.position = to;
+		}
+		if ((Move.flags(move) & Move.CASTLING) != 0) {
+			boolean kingSide = to.index > from.index;
+			Square rookFrom = getSquare(kingSide ? to.index + 1 : to.index - 2);
+			Square rookTo = getSquare(kingSide ? to.index - 1 : to.index + 1);
+			Piece rook = rookFrom.occupiedBy;
+			rookFrom.occupiedBy = null;
+			rookTo.occupiedBy = rook;
+			rook.position = rookTo;
+		}
+		
+		// Next player's turn. Let's see if the game is over for them.
+		masterWhiteTurn = !masterWhiteTurn;
+		internalWhiteTurn = masterWhiteTurn;
+		((King) getSquare(kingSquare(!masterWhiteTurn)).occupiedBy).isChecked = false;
+		boolean check = isPieceChecking(masterWhiteTurn);
+		if (generateLegalMoves(moveBuffer) == 0) {
+			if (check) {
+				isCheckmate = true;
+			}
+			else {
+				isStalemate = true;
+			}
+		}
+	}
+	
+	/*
+	 * Makes the move passed in on the core for good: like playMove it cannot
+	 * be taken back, so the undo stack does not grow however long the game
+	 * replayed this way is, but the squares, pieces and move log are not
+	 * touched. For boards replaying a game on the core alone (see PgnWriter).
+	 */
+	public void replayMove(int move) {
+		makeMove(move);
+		undoDepth = 0;
+	}
+	
+	/*
+	 * Returns the number of moves played in the game (playMove).
+	 */
+	public int plyCount() {
+		return plyCount;
+	}
+	
+	/*
+	 * Returns the move played at the ply passed in, counted from 0.
+	 */
+	public int movePlayed(int ply) {
+		if (ply < 0 || ply >= plyCount) {
+			throw new IllegalArgumentException("No move played at ply " + ply);
+		}
+		return moveLog[ply];
+	}
+	
+	/*
+	 * Returns the moves played in the game so far.
+	 */
+	public int[] moveLog() {
+		return Arrays.copyOf(moveLog, plyCount);
+	}
+	
+	/*
+	 * Returns the legal move of the player moving from one square to another,
+	 * or Move.NONE if there is none. A pawn reaching the last row becomes the
+	 * piece type passed in.
+	 */
+	public int findLegalMove(int from, int to, int promotion) {
+		int count = generateLegalMoves(moveBuffer);
+		for (int i = 0; i < count; i++) {
+			int move = moveBuffer[i];
+			if (Move.from(move) == from && Move.to(move) == to
+				&& (Move.promotion(move) == 0 || Move.promotion(move) == promotion)) {
+				return move;
+			}
+		}
+		return Move.NONE;
+	}
+	
+	/*
+	 * Creates the view of a piece of the given type and color on the square.
+	 */
+	private Piece newPiece(int type, boolean white, int square) {
+		switch (type) {
+			case PAWN: return white ? new WhitePawn(this, pawnName, WHITE, square) : new BlackPawn(this, pawnName, !WHITE, square);
+			case KNIGHT: return new Knight(this, knightName, white, square);
+			case BISHOP: return new Bishop(this, bishopName, white, square);
+			case ROOK: return new Rook(this, rookName, white, square);
+			case KING: return new King(this, kingName, white, square);
+			default: return new Queen(this, queenName, white, square);
+		}
+	}
+	
+	/*
+	 * Takes every piece off the board and puts the board back the way the
+	 * constructor leaves it: white to move, all castling rights, no en
+	 * passant square and the game not over.
+	 */
+	public void clear() {
+		for (int sq = 0; sq < numSquares; sq++) {
+			getSquare(sq).occupiedBy = null;
+			clearSquare(sq);
+		}
+		for (Piece p : piecesOnBoard) {
+			p.onBoard = false;
+		}
+		piecesOnBoard.clear();
+		castlingRights = ALL_CASTLING;
+		enPassantSquare = EMPTY;
+		halfmoveClock = 0;
+		fullmoveNumber = 1;
+		undoDepth = 0;
+		plyCount = 0;
+		startPosition = null;
+		internalWhiteTurn = true;
+		masterWhiteTurn = true;
+		realMove = REAL_MOVE;
+		isCheckmate = false;
+		isStalemate = false;
+		zobristKey = computeZobristKey();
+	}
+	
+	/*
+	 * Sets the board up from a FEN record: the pieces row by row from row 8
+	 * ("rnbqkbnr/pppppppp/8/..."), the player moving ("w" or "b"), the
+	 * castling rights ("KQkq" or "-"), the en passant square ("e3" or "-"),
+	 * the halfmove clock and the fullmove number. The two counters may be
+	 * left out (0 and 1 then). The game starts over from there, with an
+	 * empty move log. A record that is not a position (a row not 8 squares
+	 * long, a side without exactly one king, a pawn on the first or last
+	 * row, the player not moving in check, ...) is rejected before the board
+	 * is touched. Castling rights whose king or rook is not on its square,
+	 * and an en passant square with no pawn that just moved past it, are
+	 * dropped.
+	 */
+	public void setUpPosition(String fen) {
+		String[] fields = fen.trim().split("\\s+");
+		if (fields.length != 4 && fields.length != 6) {
+			throw new IllegalArgumentException("Not a position, 4 or 6 fields expected: " + fen);
+		}
+		long[] pieces = parsePlacement(fields[0], fen);
+		if (!fields[1].equals("w") && !fields[1].equals("b")) {
+			throw new IllegalArgumentException("Not a player to move: " + fields[1]);
+		}
+		boolean white = fields[1].equals("w");
+		long occ = 0;
+		for (long bits : pieces) {
+			occ |= bits;
+		}
+		int otherKing = Bitboards.first(pieces[pieceCode(KING, !white)]);
+		if (attackersTo(pieces, otherKing, white, occ) != 0) {
+			throw new IllegalArgumentException("The player not moving is in check: " + fen);
+		}
+		int rights = 0;
+		if (!fields[2].equals("-")) {
+			for (int i = 0; i < fields[2].length(); i++) {
+				int right = CASTLING_LETTERS.indexOf(fields[2].charAt(i));
+				if (right < 0) {
+					throw new IllegalArgumentException("Not castling rights: " + fields[2]);
+				}
+				rights |= 1 << right;
+			}
+		}
+		for (int right = 0; right < CASTLING_LETTERS.length(); right++) {
+			boolean whiteRight = right < 2;
+			int home = whiteRight ? 0 : Bitboards.square(0, numRows - 1);
+			int corner = right % 2 == 0 ? home + numColumns - 1 : home;
+			if ((pieces[pieceCode(KING, whiteRight)] & Bitboards.bit(home + 4)) == 0
+				|| (pieces[pieceCode(ROOK, whiteRight)] & Bitboards.bit(corner)) == 0) {
+				rights &= ~(1 << right);
+			}
+		}
+		int enPassant = EMPTY;
+		if (!fields[3].equals("-")) {
+			int row = fields[3].length() == sizeOfLoc ? fields[3].charAt(1) - '1' : EMPTY;
+			if (fields[3].charAt(0) < firstLetter || fields[3].charAt(0) >= firstLetter + numColumns
+				|| row != (fields[1].equals("w") ? numRows - 3 : 2)) {
+				throw new IllegalArgumentException("Not an en passant square: " + fields[3]);
+			}
+			enPassant = squareIndex(fields[3]);
+			// The pawn that moved two squares stands in front of it, and the
+			// squares it passed are empty
+			int forward = white ? numColumns : -numColumns;
+			if ((pieces[pieceCode(PAWN, !white)] & Bitboards.bit(enPassant - forward)) == 0
+				|| (occ & (Bitboards.bit(enPassant) | Bitboards.bit(enPassant + forward))) != 0) {
+				enPassant = EMPTY;
+			}
+		}
+		int halfmoves = 0;
+		int fullmoves = 1;
+		if (fields.length == 6) {
+			try {
+				halfmoves = Integer.parseInt(fields[4]);
+				fullmoves = Integer.parseInt(fields[5]);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Not move counters: " + fields[4] + " " + fields[5], e);
+			}
+			if (halfmoves < 0 || fullmoves < 1) {
+				throw new IllegalArgumentException("Not move counters: " + fields[4] + " " + fields[5]);
+			}
 		}
-		// Now we know that the player moving is not checked. We must now do the
-		// most time consuming part: check to see if any pieces of the player
-		// moving can make a legal and valid move anywhere on the board.
 		
-		// Indicate to program subsequent moves are not real
-		realMove = !REAL_MOVE;
-		// Iterate through all the pieces first
-		for (int i = 0; i < piecesOnBoard.size(); i++) {
-			Piece p = piecesOnBoard.get(i);
-			// Make sure the piece is of the right color
-			if (p.isWhite == internalWhiteTurn) {
-				// Check to see if this piece can make any move. Iterate through 
-				// all squares on the board, seeing if the piece can make it to 
-				// any one of these squares legally.
-				// Iterate through all rows
-				for (int r = 0; r < numRows; r++) {
-					// Iterate through all columns in row r
-					for (int c = 0; c < numColumns; c++) {
-						// Find square given row r and column c.
-						String name = ((char) (firstLetter + c)) + "" + (numRows-r);
-						Square s = getSquare(name);
-						if (p.makeMove(s.name)) {
-							// Only possibility of old value of switch is true.
-							// Change it back
-							realMove = REAL_MOVE;
-							// Here a piece can make a move. Return false.
-							return false;
-						}
-					}
+		clear();
+		for (int code = 0; code < pieces.length; code++) {
+			for (long bits = pieces[code]; bits != 0; bits &= bits - 1) {
+				newPiece(code % numPieceTypes, code < numPieceTypes, Bitboards.first(bits));
+			}
+		}
+		masterWhiteTurn = white;
+		internalWhiteTurn = masterWhiteTurn;
+		castlingRights = rights;
+		enPassantSquare = enPassant;
+		halfmoveClock = halfmoves;
+		fullmoveNumber = fullmoves;
+		zobristKey = computeZobristKey();
+		startPosition = toFen();
+	}
+	
+	/*
+	 * Reads the first field of the FEN record passed in into one bitboard
+	 * per piece code. Throws unless it is 8 rows of 8 squares each, made of
+	 * piece letters and runs of empty squares, with one king of each color
+	 * and no pawn on the first or last row.
+	 */
+	private static long[] parsePlacement(String placement, String fen) {
+		long[] pieces = new long[numPlayers * numPieceTypes];
+		int row = numRows - 1;
+		int col = 0;
+		for (int i = 0; i < placement.length(); i++) {
+			char c = placement.charAt(i);
+			if (c == '/') {
+				if (col != numColumns || row == 0) {
+					throw new IllegalArgumentException("Not 8 rows of 8 squares: " + fen);
+				}
+				row--;
+				col = 0;
+			}
+			else if (c >= '1' && c <= '8') {
+				col += c - '0';
+			}
+			else if (FEN_PIECES.indexOf(Character.toUpperCase(c)) >= 0) {
+				if (col < numColumns) {
+					int type = FEN_PIECES.indexOf(Character.toUpperCase(c));
+					pieces[pieceCode(type, Character.isUpperCase(c))] |= Bitboards.bit(Bitboards.square(col, row));
+				}
+				col++;
+			}
+			else {
+				throw new IllegalArgumentException("Not a piece or run of empty squares: " + c + " in " + fen);
+			}
+			if (col > numColumns) {
+				throw new IllegalArgumentException("Not 8 rows of 8 squares: " + fen);
+			}
+		}
+		if (row != 0 || col != numColumns) {
+			throw new IllegalArgumentException("Not 8 rows of 8 squares: " + fen);
+		}
+		if (Long.bitCount(pieces[pieceCode(KING, WHITE)]) != 1 || Long.bitCount(pieces[pieceCode(KING, !WHITE)]) != 1) {
+			throw new IllegalArgumentException("Each side needs exactly one king: " + fen);
+		}
+		long backRows = FIRST_ROW | FIRST_ROW << (numSquares - numColumns);
+		if (((pieces[pieceCode(PAWN, WHITE)] | pieces[pieceCode(PAWN, !WHITE)]) & backRows) != 0) {
+			throw new IllegalArgumentException("No pawn can stand on the first or last row: " + fen);
+		}
+		return pieces;
+	}
+	
+	/*
+	 * Returns the position of the core as a FEN record (see setUpPosition),
+	 * the player moving being the one of the internal clock. The en passant
+	 * square is given after every double push, whether or not a pawn can
+	 * take on it.
+	 */
+	public String toFen() {
+		StringBuilder s = new StringBuilder();
+		for (int row = numRows - 1; row >= 0; row--) {
+			int empty = 0;
+			for (int col = 0; col < numColumns; col++) {
+				int code = mailbox[Bitboards.square(col, row)];
+				if (code == EMPTY) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					s.append(empty);
+					empty = 0;
 				}
+				char letter = FEN_PIECES.charAt(code % numPieceTypes);
+				s.append(code < numPieceTypes ? letter : Character.toLowerCase(letter));
+			}
+			if (empty > 0) {
+				s.append(empty);
+			}
+			if (row > 0) {
+				s.append('/');
+			}
+		}
+		s.append(internalWhiteTurn ? " w " : " b ");
+		if (castlingRights == 0) {
+			s.append('-');
+		}
+		for (int i = 0; i < CASTLING_LETTERS.length(); i++) {
+			if ((castlingRights & (1 << i)) != 0) {
+				s.append(CASTLING_LETTERS.charAt(i));
 			}
 		}
-		// Here, no piece from the player moving can make a move anywhere on the
-		// board legally, but the player is not checked. This is stalemate. No
-		// need to change switch, game is over.
-		return true;
+		s.append(' ');
+		s.append(enPassantSquare == EMPTY ? "-" : getSquare(enPassantSquare).name);
+		s.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+		return s.toString();
 	}
 	
 	/*
-	 * This method will only be called if a check is made: the method checks
-	 * whether the game is over
-	 * The king being checked and the piece checking are passed as parameters
+	 * Returns every piece of the given color attacking the square passed in,
+	 * with the occupied squares passed in (so that a move can be tried out
+	 * without touching the board).
 	 */
-	public boolean isCheckMate(King k, Piece p) {
-		// we have to first check if the king can move out of the check
-		// this includes the king capturing the piece that gives the check
-		// there are 8 possible moves the king can make: some may not be possible
-		// given where the king is on the board (we must account for that)
+	private long attackersTo(int square, boolean byWhite, long occ) {
+		return attackersTo(bitboards, square, byWhite, occ);
+	}
+	
+	/*
+	 * Same as attackersTo above, for the pieces passed in (one bitboard per
+	 * piece code) rather than the board's.
+	 */
+	private static long attackersTo(long[] pieces, int square, boolean byWhite, long occ) {
+		int otherSide = byWhite ? BLACK_SIDE : WHITE_SIDE;
+		long queens = pieces[pieceCode(QUEEN, byWhite)];
+		return (Bitboards.PAWN_ATTACKS[otherSide][square] & pieces[pieceCode(PAWN, byWhite)])
+			| (Bitboards.KNIGHT_ATTACKS[square] & pieces[pieceCode(KNIGHT, byWhite)])
+			| (Bitboards.KING_ATTACKS[square] & pieces[pieceCode(KING, byWhite)])
+			| (Bitboards.bishopAttacks(square, occ) & (pieces[pieceCode(BISHOP, byWhite)] | queens))
+			| (Bitboards.rookAttacks(square, occ) & (pieces[pieceCode(ROOK, byWhite)] | queens));
+	}
+	
+	/*
+	 * Returns true if any piece of the given color attacks the square passed
+	 * in. The answer is worked out from the square outward: a knight, king or
+	 * pawn of that color sits on one of the squares the table for the square
+	 * gives, or a slider sits at the end of one of the square's rays.
+	 */
+	public boolean isSquareAttacked(int square, boolean byWhite) {
+		return attackersTo(square, byWhite, occupied) != 0;
+	}
+	
+	/*
+	 * Returns every piece giving check to the king of the given color; more
+	 * than one bit set means double check.
+	 */
+	public long checkers(boolean white) {
+		return attackersTo(kingSquare(white), !white, occupied);
+	}
+	
+	/*
+	 * Returns true if the king of the given color is attacked.
+	 */
+	private boolean inCheck(boolean white) {
+		return checkers(white) != 0;
+	}
+	
+	/*
+	 * Fills the buffer passed in with every legal move of the player moving
+	 * (internalWhiteTurn) and returns how many there are. Moves are packed
+	 * ints (see Move); a pawn reaching the last row gives one move per piece
+	 * it can become. The buffer must have room for maxMoves moves. Nothing is
+	 * allocated and the board is left untouched: each move is tried out on
+	 * the occupancy bits only, to see whether it leaves the king attacked.
+	 * 
+	 * When the king is in check, only moves that take the checking piece or
+	 * step between it and the king are tried for pieces other than the king;
+	 * in double check only the king can move.
+	 */
+	public int generateLegalMoves(int[] buffer) {
+		return generate(buffer, false);
+	}
+	
+	/*
+	 * Same as generateLegalMoves, keeping only the captures (en passant
+	 * included) and the promotions: the moves a quiescence search looks at.
+	 */
+	public int generateLegalCaptures(int[] buffer) {
+		return generate(buffer, true);
+	}
+	
+	private int generate(int[] buffer, boolean capturesOnly) {
+		boolean white = internalWhiteTurn;
+		long own = occupancy[white ? WHITE_SIDE : BLACK_SIDE];
+		long enemy = occupancy[white ? BLACK_SIDE : WHITE_SIDE];
+		// Squares a move may go to without capturing
+		long quiet = capturesOnly ? 0 : ~0L;
+		int count = 0;
+		int kingSquare = kingSquare(white);
+		long checkers = attackersTo(kingSquare, !white, occupied);
+		long evasions = ~0L;
+		if (checkers != 0) {
+			evasions = (checkers & (checkers - 1)) != 0 ? 0
+				: checkers | Bitboards.BETWEEN[kingSquare][Bitboards.first(checkers)];
+		}
 		
-		// The appropriate king is already passed as a parameter
-		// if one of these moves gets the king out of the check, it's not checkmate
-		Square currPos = k.position;
-		int row = getRow(currPos.name.substring(1));
-		int col = getCol(currPos.name.substring(0,1));
-		// iterates through all directions
-		for (int d[] : k.DIRECTIONS) {
-			// checking to make sure the move is going to keep the king on the board
-			if (row + d[0] >= 1 && row + d[0] <= numRows && col + d[1] >= 1 && col + d[1] <= numColumns) {
-				char newCol = (char) (firstLetter + col - 1 + d[1]);
-				String newName = newCol + "" + (row + d[0]);
-				Square newPos = getSquare(newName);
-				Piece capture = newPos.occupiedBy;
-				// Is there a piece where the king is trying to move? That piece
-				// needs to be of the opponent. Other option is there is no piece
-				if ((capture != null && capture.isWhite != k.isWhite) || capture == null) {
-					// Move is valid: check if this move gets the king out of
-					// check
-					if (canKingMove(k, newPos, currPos, capture)) {
-						return false;
-					}
+		// Pawns: pushes, double pushes from the starting row, captures and
+		// en passant
+		int forward = white ? numColumns : -numColumns;
+		int startRow = white ? 1 : numRows - 2;
+		int lastRow = white ? numRows - 1 : 0;
+		int enPassant = enPassantSquare;
+		long pawns = evasions == 0 ? 0 : bitboards[pieceCode(PAWN, white)];
+		while (pawns != 0) {
+			int from = Bitboards.first(pawns);
+			pawns &= pawns - 1;
+			int to = from + forward;
+			if ((occupied & Bitboards.bit(to)) == 0) {
+				if ((evasions & Bitboards.bit(to)) != 0 && (!capturesOnly || Bitboards.rank(to) == lastRow)) {
+					count = addPawnMoves(buffer, count, from, to, Move.NONE);
 				}
+				if (!capturesOnly && Bitboards.rank(from) == startRow && (occupied & Bitboards.bit(to + forward)) == 0
+					&& (evasions & Bitboards.bit(to + forward)) != 0) {
+					count = addIfLegal(buffer, count, Move.make(from, to + forward, 0, Move.DOUBLE_PUSH));
+				}
+			}
+			long attacks = Bitboards.PAWN_ATTACKS[white ? WHITE_SIDE : BLACK_SIDE][from];
+			long captures = attacks & enemy & evasions;
+			while (captures != 0) {
+				count = addPawnMoves(buffer, count, from, Bitboards.first(captures), Move.CAPTURE);
+				captures &= captures - 1;
+			}
+			// Taking en passant answers a check by the pawn taken as well
+			if (enPassant != EMPTY && (attacks & Bitboards.bit(enPassant)) != 0
+				&& (evasions & (Bitboards.bit(enPassant) | Bitboards.bit(enPassant - forward))) != 0) {
+				count = addIfLegal(buffer, count, Move.make(from, enPassant, 0, Move.CAPTURE | Move.EN_PASSANT));
 			}
 		}
-		// Here there are no possible positions for the king to move to that don't
-		// result in a check; let's see if there are any friendly pieces that can
-		// get rid of the check or pin themselves
-		// To do this, we must first grab all the squares from the piece checking
-		// to the king being checked.
-		ArrayList<Square> squares = p.grabAllSquares(k.position);
-		// *** internal clock changed here!!! ***
-		internalWhiteTurn = !internalWhiteTurn;
-		// Now let's see if there are any friendly pieces that can get to one of
-		// these squares: if any piece can, then the check has been blocked or
-		// removed.
 		
-		// Indicate to program subsequent moves are not real
-		realMove = !REAL_MOVE;
-		// iterate through all pieces on the board
-		for (int i = 0; i < piecesOnBoard.size(); i++) {
-			Piece piece = piecesOnBoard.get(i);
-			// making sure the piece is friendly and not the King
-			if (piece.isWhite == k.isWhite && !piece.equals(k)) {
-				for (Square s : squares) {
-					// if the piece can get to any one of the squares in the list,
-					// the check has been either blocked or eliminated: the game
-					// goes on!!!
-					if (piece.makeMove(s.name)) {
-						// Only possibility of old value of switch is true
-						// Change it back
-						realMove = REAL_MOVE;
-						return false;
-					}
+		// Every other piece moves to any square it attacks that does not hold
+		// a friendly piece
+		for (int type = KNIGHT; type <= KING; type++) {
+			long pieces = bitboards[pieceCode(type, white)];
+			long allowed = (type == KING ? ~own : ~own & evasions) & (enemy | quiet);
+			while (pieces != 0) {
+				int from = Bitboards.first(pieces);
+				pieces &= pieces - 1;
+				long targets = attacks(type, from, occupied) & allowed;
+				while (targets != 0) {
+					int to = Bitboards.first(targets);
+					targets &= targets - 1;
+					int flags = (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.NONE;
+					count = addIfLegal(buffer, count, Move.make(from, to, 0, flags));
 				}
 			}
 		}
-		// Here, the king cannot get out of the check by himself and there is
-		// no friendly piece that can get rid of the check: this means there are
-		// no valid moves left for the player being checked. OH NO, GAME OVER!!
-		// THIS IS CHECKMATE!!!
-		return true;
-	}
-	
-	/*
-	 * This method checks to see if the king in question can legally move to the
-	 * position passed in as a parameter. The move is then undone and the method
-	 * returns true if the move is a possible legal move and false otherwise.
-	 * This method is only called when the king is in check and we are checking
-	 * to see if the game is over (one criteria is that the king cannot move 
-	 * anywhere).
-	 */
-	private boolean canKingMove(King k, Square newPos, Square currPos, Piece capture) {
-		boolean newCheck = false;
-		// Is the move valid?
-		// Method is called through checkmate, so switch should already be
-		// false; for safety purposes, explicitly set to false here.
-		realMove = !REAL_MOVE;
-		if (k.isValidMove(newPos.name)) {
-			// make the move
-			newPos.changePieceOccupied(k, currPos);
-			// The move is valid, but does it get the king out of check?
-			if (!isPieceChecking(!masterWhiteTurn)) {
-				// The move is valid and gets the king out of check. Game goes
-				// on!!
-				newCheck = true;
-			}
-			// undo the move
-			k.undoMove(currPos, capture, false);
-		}
-		// Don't change switch back to true; method is called through checkmate
-		// and we don't know if it is done iterating through all possibilities.
 		
-		// Make sure we reset the king's isChecked field to true just in case
-		// the move got the king out of check.
-		k.isChecked = true;
-		return newCheck;
+		// Castling: the king may not be in check (see castlingMove for the
+		// rest)
+		if (!capturesOnly && checkers == 0) {
+			int kingSide = castlingMove(white, true);
+			if (kingSide != Move.NONE) {
+				buffer[count++] = kingSide;
+			}
+			int queenSide = castlingMove(white, false);
+			if (queenSide != Move.NONE) {
+				buffer[count++] = queenSide;
+			}
+		}
+		return count;
+	}
+	
+	/*
+	 * Returns the castling move of the player moving on the side passed in
+	 * (the king's side if kingSide), Move.NONE if it is not legal.
+	 */
+	public int castlingMove(boolean kingSide) {
+		boolean white = internalWhiteTurn;
+		return inCheck(white) ? Move.NONE : castlingMove(white, kingSide);
+	}
+	
+	/*
+	 * Same as castlingMove above for the king of the given color, which is
+	 * known not to be in check: the right must still be held, the squares
+	 * between king and rook must be empty, and the king may not pass through
+	 * or land on an attacked square.
+	 */
+	private int castlingMove(boolean white, boolean kingSide) {
+		int home = white ? 0 : Bitboards.square(0, numRows - 1);
+		int king = home + 4;
+		if (mailbox[king] != pieceCode(KING, white)) {
+			return Move.NONE;
+		}
+		if (kingSide) {
+			if ((castlingRights & (white ? WHITE_KINGSIDE : BLACK_KINGSIDE)) != 0
+				&& mailbox[home + 7] == pieceCode(ROOK, white)
+				&& (occupied & (Bitboards.bit(home + 5) | Bitboards.bit(home + 6))) == 0
+				&& attackersTo(home + 5, !white, occupied) == 0
+				&& attackersTo(home + 6, !white, occupied) == 0) {
+				return Move.make(king, home + 6, 0, Move.CASTLING);
+			}
+		}
+		else if ((castlingRights & (white ? WHITE_QUEENSIDE : BLACK_QUEENSIDE)) != 0
+			&& mailbox[home] == pieceCode(ROOK, white)
+			&& (occupied & (Bitboards.bit(home + 1) | Bitboards.bit(home + 2) | Bitboards.bit(home + 3))) == 0
+			&& attackersTo(home + 3, !white, occupied) == 0
+			&& attackersTo(home + 2, !white, occupied) == 0) {
+			return Move.make(king, home + 2, 0, Move.CASTLING);
+		}
+		return Move.NONE;
+	}
+	
+	/*
+	 * Returns the squares a piece of the given type (not a pawn) on the square
+	 * passed in attacks, given the occupied squares. These are also the
+	 * squares such a piece could come to the square from.
+	 */
+	public static long attacks(int type, int square, long occ) {
+		switch (type) {
+			case KNIGHT: return Bitboards.KNIGHT_ATTACKS[square];
+			case BISHOP: return Bitboards.bishopAttacks(square, occ);
+			case ROOK: return Bitboards.rookAttacks(square, occ);
+			case QUEEN: return Bitboards.bishopAttacks(square, occ) | Bitboards.rookAttacks(square, occ);
+			default: return Bitboards.KING_ATTACKS[square];
+		}
+	}
+	
+	/*
+	 * Adds a pawn move to the buffer if it is legal. A pawn reaching the last
+	 * row adds one move per piece it can be promoted to.
+	 */
+	private int addPawnMoves(int[] buffer, int count, int from, int to, int flags) {
+		int row = Bitboards.rank(to);
+		if (row != 0 && row != numRows - 1) {
+			return addIfLegal(buffer, count, Move.make(from, to, 0, flags));
+		}
+		if (!isLegal(Move.make(from, to, 0, flags))) {
+			return count;
+		}
+		for (int type = QUEEN; type >= KNIGHT; type--) {
+			buffer[count++] = Move.make(from, to, type, flags);
+		}
+		return count;
+	}
+	
+	private int addIfLegal(int[] buffer, int count, int move) {
+		if (isLegal(move)) {
+			buffer[count++] = move;
+		}
+		return count;
+	}
+	
+	/*
+	 * Tries the move out on the occupancy bits alone and returns true if it
+	 * does not leave the mover's king attacked. The move must otherwise be
+	 * one the piece on its square can make (castling aside, see
+	 * castlingMove), with its flags set.
+	 */
+	public boolean isLegal(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		boolean white = mailbox[from] < numPieceTypes;
+		long captured = Bitboards.bit(to);
+		if ((Move.flags(move) & Move.EN_PASSANT) != 0) {
+			captured = Bitboards.bit(to + (white ? -numColumns : numColumns));
+		}
+		long occ = (occupied & ~Bitboards.bit(from) & ~captured) | Bitboards.bit(to);
+		int king = mailbox[from] == pieceCode(KING, white) ? to : kingSquare(white);
+		return (attackersTo(king, !white, occ) & ~captured) == 0;
+	}
+	
+	/*
+	 * Static exchange evaluation: returns what the player moving wins (in
+	 * centipawns, negative if it loses) when the move passed in starts a
+	 * series of captures on its target square, each side taking back with
+	 * its least valuable piece and either side stopping when going on would
+	 * lose. It is worked out from the attack sets of the square alone, taking
+	 * each capturing piece off the occupancy bits so that the sliders behind
+	 * it join in; no move is made. Pins are not looked at.
+	 */
+	public int see(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		boolean side = mailbox[from] < numPieceTypes;
+		long occ = occupied;
+		int depth = 0;
+		if ((Move.flags(move) & Move.EN_PASSANT) != 0) {
+			seeGain[0] = pieceValues[PAWN];
+			occ ^= Bitboards.bit(to + (side ? -numColumns : numColumns));
+		}
+		else {
+			seeGain[0] = mailbox[to] == EMPTY ? 0 : seeValue(mailbox[to] % numPieceTypes);
+		}
+		int attacker = mailbox[from] % numPieceTypes;
+		if (Move.promotion(move) != 0) {
+			attacker = Move.promotion(move);
+			seeGain[0] += seeValue(attacker) - seeValue(PAWN);
+		}
+		long fromBit = Bitboards.bit(from);
+		while (true) {
+			depth++;
+			// What the side taking next wins if the piece just moved is taken
+			seeGain[depth] = seeValue(attacker) - seeGain[depth - 1];
+			// Neither side can do better than stop here
+			if (Math.max(-seeGain[depth - 1], seeGain[depth]) < 0) {
+				break;
+			}
+			occ ^= fromBit;
+			side = !side;
+			long attackers = (attackersTo(to, WHITE, occ) | attackersTo(to, !WHITE, occ)) & occ;
+			long mine = attackers & occupancy[side ? WHITE_SIDE : BLACK_SIDE];
+			if (mine == 0) {
+				break;
+			}
+			for (attacker = PAWN; attacker <= KING; attacker++) {
+				long pieces = mine & bitboards[pieceCode(attacker, side)];
+				if (pieces != 0) {
+					fromBit = pieces & -pieces;
+					break;
+				}
+			}
+			// The king can only take last
+			if (attacker == KING && (attackers & ~mine) != 0) {
+				break;
+			}
+		}
+		while (--depth > 0) {
+			seeGain[depth - 1] = -Math.max(-seeGain[depth - 1], seeGain[depth]);
+		}
+		return seeGain[0];
+	}
+	
+	private static int seeValue(int type) {
+		return type == KING ? seeKingValue : pieceValues[type];
+	}
+	
+	/*  
+	 *  This method checks whether the king of the given color is attacked; it
+	 *  will also return true or false depending on whether a check was made.
+	 *  The king's isChecked field is updated to match.
+	 */
+	public boolean isPieceChecking(boolean whiteT) {
+		boolean check = inCheck(whiteT);
+		King k = (King) getSquare(kingSquare(whiteT)).occupiedBy;
+		k.isChecked = check;
+		return check;
+	}
+	
+	/*
+	 * A player is in stalemate when they are not in check but have no legal
+	 * move anywhere on the board. The move generator answers that directly.
+	 */
+	public boolean isStaleMate() {
+		// For a player to be in stalemate, they first cannot be in check. Let's
+		// make sure.
+		if (inCheck(internalWhiteTurn)) {
+			return false;
+		}
+		// Now we know that the player moving is not checked. If no piece of the
+		// player moving can make a legal move, this is stalemate.
+		return generateLegalMoves(moveBuffer) == 0;
+	}
+	
+	/*
+	 * The player moving is checkmated when they are in check and have no
+	 * legal move left: the king cannot get out of the check by himself and
+	 * there is no friendly piece that can get rid of the check.
+	 */
+	public boolean isCheckMate() {
+		return inCheck(internalWhiteTurn) && generateLegalMoves(moveBuffer) == 0;
 	}
 	
 	/*
 	 * This method works as a tool to other classes: it returns the square 
-	 * corresponding to the name passed as a parameter.
+	 * with the index passed as a parameter (a1 = 0, h8 = 63).
 	 */
-	public Square getSquare(String name) {
-		char first = Character.toLowerCase(name.charAt(0));
-		String actualName = first + "" + name.charAt(1);
-		int row = getRow(actualName.substring(1));
-		int col = getCol(actualName.substring(0,1));
-		return board[numRows - row][col - 1];
+	public Square getSquare(int index) {
+		return board[numRows - 1 - Bitboards.rank(index)][Bitboards.file(index)];
 	}
 	
 	/*
-	 * This method works as a tool to other classes: it returns the row of the
-	 * square passed in as a parameter. The square's name is passed in, not the
-	 * square itself.
+	 * This method works as a tool to other classes: it returns the square 
+	 * corresponding to the name passed as a parameter. Names are only used at
+	 * the edges (text interface, GUI, files); everything else works with
+	 * square indexes.
 	 */
-	public int getRow(String row) {
-		return Integer.parseInt(row);
+	public Square getSquare(String name) {
+		return getSquare(squareIndex(name));
 	}
 	
 	/*
-	 * This method works as a tool to other classes: it returns the column of
-	 * the square passed in as a parameter.
+	 * This method works as a tool to other classes: it returns the index of
+	 * the square whose name is passed in ("e4" is 28). Only the first two
+	 * characters are read, and no new strings are made.
 	 */
-	public int getCol(String col) {
-		char column = Character.toLowerCase(col.charAt(0));
-		return column - firstLetter + 1;
+	public static int squareIndex(CharSequence name) {
+		int col = Character.toLowerCase(name.charAt(0)) - firstLetter;
+		int row = name.charAt(1) - '1';
+		return Bitboards.square(col, row);
 	}
 	
 	/*
@@ -278,15 +1154,15 @@ public class Board extends Observable implements chessInterface {
 	 * piece.
 	 */
 	public Piece getPiece(char name, boolean white, Square position) {
-		for (Piece p : piecesOnBoard) {
-			if (p.name == name && p.isWhite == white) {
-				if ((position != null && p.position == position) || position == null) {
-					return p;
-				}
-			}
+		long candidates = bitboards[pieceCode(pieceType(name), white)];
+		if (position != null) {
+			candidates &= Bitboards.bit(position.index);
+		}
+		if (candidates == 0) {
+			// No piece found, return null
+			return null;
 		}
-		// No piece found, return null
-		return null;
+		return getSquare(Bitboards.first(candidates)).occupiedBy;
 	}
 	
 	/*
@@ -0,0 +1,122 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/*
+ * This is the micro benchmark for the core board operations: Piece.makeMove
+ * (as a legality probe), SanParser.parse, Board.isPieceChecking,
+ * isCheckMate, isStaleMate, getPiece and getSquare. Each operation is timed
+ * on fixed positions, set up from FEN: the start position and two
+ * middlegames, one full of tactics (kiwipete from the perft suite, with
+ * both sides able to castle, pins and captures everywhere) and one quiet,
+ * so that every operation runs where the player moving has moves. Every
+ * operation gets warmup rounds so the JIT has compiled it, then measured
+ * rounds; the report gives the time per call and, like a gc profiler, the
+ * bytes allocated per call and the number of garbage collections during
+ * the measured rounds. An operation on the hot path should allocate 0
+ * bytes per call.
+ *
+ * Usage: java BoardBenchmark
+ */
+public class BoardBenchmark implements chessInterface {
+
+	private final static int warmupRounds = 5;
+	private final static int measuredRounds = 5;
+	private final static int callsPerRound = 200000;
+	// Name and FEN of each position
+	private final static String[][] POSITIONS = {
+		{"start", START_FEN},
+		{"kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"},
+		{"quiet middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"}
+	};
+
+	private final static Board board = new Board();
+	// Results are folded in here so the JIT cannot drop the calls
+	private static long sink;
+	private final static int[] moveBuffer = new int[maxMoves];
+
+	private interface Operation {
+		long run();
+	}
+
+	public static void main(String[] args) {
+		System.out.println(String.format("%-32s %-18s %12s %12s %8s", "position", "operation", "ns/op", "bytes/op", "gc"));
+		for (String[] p : POSITIONS) {
+			String position = p[0];
+			board.setUpPosition(p[1]);
+			// Probe a legal move of the player moving, if there is one
+			int count = board.generateLegalMoves(moveBuffer);
+			Piece mover = count > 0 ? board.getSquare(Move.from(moveBuffer[0])).occupiedBy : null;
+			int target = count > 0 ? Move.to(moveBuffer[0]) : 0;
+			boolean white = board.masterWhiteTurn;
+
+			if (mover != null) {
+				measure(position, "makeMove", () -> {
+					board.realMove = !REAL_MOVE;
+					boolean valid = mover.makeMove(target);
+					board.realMove = REAL_MOVE;
+					return valid ? 1 : 0;
+				});
+				// The probed move in SAN, with whatever it takes to tell pieces
+				// apart
+				String san = SanWriter.toSan(board, moveBuffer[0]);
+				measure(position, "SanParser.parse", () -> SanParser.parse(board, san));
+			}
+			measure(position, "isPieceChecking", () -> board.isPieceChecking(white) ? 1 : 0);
+			measure(position, "isCheckMate", () -> board.isCheckMate() ? 1 : 0);
+			measure(position, "isStaleMate", () -> board.isStaleMate() ? 1 : 0);
+			measure(position, "getPiece", () -> board.getPiece(kingName, white, null).position.index);
+			measure(position, "getSquare(String)", () -> board.getSquare("e4").index);
+			measure(position, "getSquare(int)", () -> board.getSquare(28).index);
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/*
+	 * Runs the operation for the warmup rounds, then times the measured
+	 * rounds and prints one line of results.
+	 */
+	private static void measure(String position, String name, Operation op) {
+		for (int r = 0; r < warmupRounds; r++) {
+			round(op);
+		}
+		long gcBefore = gcCount();
+		long bytesBefore = allocatedBytes();
+		long start = System.nanoTime();
+		for (int r = 0; r < measuredRounds; r++) {
+			round(op);
+		}
+		long time = System.nanoTime() - start;
+		long bytes = allocatedBytes() - bytesBefore;
+		long gcs = gcCount() - gcBefore;
+		double calls = (double) measuredRounds * callsPerRound;
+		System.out.println(String.format("%-32s %-18s %12.1f %12.1f %8d", position, name, time / calls, bytes / calls, gcs));
+	}
+
+	private static void round(Operation op) {
+		long result = 0;
+		for (int i = 0; i < callsPerRound; i++) {
+			result += op.run();
+		}
+		sink += result;
+	}
+
+	/*
+	 * Bytes allocated so far by this thread.
+	 */
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+	}
+
+	/*
+	 * Garbage collections so far, over every collector.
+	 */
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+}
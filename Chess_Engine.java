@@ -1,100 +1,150 @@
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
 import java.util.ArrayList;
+
+/*
+ * Usage:
+ *   java Chess_Engine              opens the board in a window
+ *   java Chess_Engine file.pgn     lists the games of a PGN file
+ */
 public class Chess_Engine implements chessInterface {
 	
 	private final static int whitePawnPosition = 2;
 	private final static int blackPawnPosition = 7;
-	private static ArrayList<Piece> whitePieces;
-	private static ArrayList<Piece> blackPieces;
-	private static double whiteTimeTotal;
-	private static double blackTimeTotal;
-	public static Chess_GUI mainGUI;
-	public static boolean readingPGNFile;
-	public static boolean pawnPromotion;
-	public static int castlingMove;
 	
 	public static void main(String args[]) {
-		whitePieces = whiteSetUp();
-		blackPieces = blackSetUp();
+		if (args.length > 0) {
+			readPGNFile(new File(args[0]));
+			return;
+		}
+		// Everything about the game lives in its board; nothing is shared
+		// with other games.
+		Board board = new Board();
+		ArrayList<Piece> whitePieces = whiteSetUp(board);
+		ArrayList<Piece> blackPieces = blackSetUp(board);
 		System.out.println(whitePieces);
 		System.out.println(blackPieces);
-		mainGUI = new Chess_GUI();
-		//board.changed(null);
-		readingPGNFile = false;
+		new Chess_GUI(board);
 		// Only for randomized play
 		
 		// All setup for the start of a game occur here.
 		// Create the GUI here.
-		// Add a method for only reading PGN files here.
 		// Reseting fields may also occur here.
 	}
 	
+	/*
+	 * Prints one line per game of the PGN file passed in: the players, the
+	 * result and the number of plies (moves of either side) played. The
+	 * file is streamed (see PgnReader), so it can be of any size.
+	 */
 	private static void readPGNFile(File file) {
-		try {
-			Scanner readingFile = new Scanner(file);
-			
-		} catch (FileNotFoundException e) {
+		PgnVisitor lister = new PgnVisitor() {
+			private int games;
+			private int plies;
+			private int variations;
+			private String white;
+			private String black;
+
+			@Override
+			public void startGame(long offset) {
+				games++;
+				plies = 0;
+				variations = 0;
+				white = "?";
+				black = "?";
+			}
+
+			@Override
+			public void header(CharSequence name, CharSequence value) {
+				if (PgnReader.Text.contentEquals(name, "White")) {
+					white = value.toString();
+				}
+				else if (PgnReader.Text.contentEquals(name, "Black")) {
+					black = value.toString();
+				}
+			}
+
+			@Override
+			public void move(CharSequence san) {
+				if (variations == 0) {
+					plies++;
+				}
+			}
+
+			@Override
+			public void startVariation() {
+				variations++;
+			}
+
+			@Override
+			public void endVariation() {
+				variations--;
+			}
+
+			@Override
+			public void endGame(CharSequence result) {
+				System.out.println(games + ". " + white + " - " + black + " " + result + " (" + plies + " plies)");
+			}
+		};
+		try (PgnReader reader = new PgnReader(file.toPath())) {
+			reader.readAll(lister);
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 	
-	public static ArrayList<Piece> whiteSetUp() {
-		whiteTimeTotal = 0;
+	/*
+	 * Puts the white pieces on the board passed in, where they stand at the
+	 * start of a game, and returns them.
+	 */
+	public static ArrayList<Piece> whiteSetUp(Board board) {
 		ArrayList<Piece> white = new ArrayList<>();
-		white.add(new Rook(rookName, WHITE, "a1"));
-		white.add(new Rook(rookName, WHITE,"h1"));
+		white.add(new Rook(board, rookName, WHITE, "a1"));
+		white.add(new Rook(board, rookName, WHITE,"h1"));
 		
-		white.add(new Bishop(bishopName, WHITE, "c1"));
-		white.add(new Bishop(bishopName, WHITE, "f1"));
+		white.add(new Bishop(board, bishopName, WHITE, "c1"));
+		white.add(new Bishop(board, bishopName, WHITE, "f1"));
 		
-		white.add(new Queen(queenName, WHITE, "d1"));
+		white.add(new Queen(board, queenName, WHITE, "d1"));
 		
 		char letter = firstLetter;
 		for (int i = 0; i < numColumns; i++) {
 			String pos = letter + "" + whitePawnPosition;
-			white.add(new WhitePawn(pawnName, WHITE, pos));
+			white.add(new WhitePawn(board, pawnName, WHITE, pos));
 			letter = (char) (letter + 1);
 		}
 		
-		white.add(new Knight(knightName, WHITE, "b1"));
-		white.add(new Knight(knightName, WHITE, "g1"));
+		white.add(new Knight(board, knightName, WHITE, "b1"));
+		white.add(new Knight(board, knightName, WHITE, "g1"));
 		
-		white.add(new King(kingName, WHITE, "e1"));
+		white.add(new King(board, kingName, WHITE, "e1"));
 		return white;
 	}
 	
-	public static ArrayList<Piece> blackSetUp() {
-		blackTimeTotal = 0;
+	/*
+	 * Same as whiteSetUp, for the black pieces.
+	 */
+	public static ArrayList<Piece> blackSetUp(Board board) {
 		ArrayList<Piece> black = new ArrayList<>();
-		black.add(new Rook(rookName, !WHITE, "a8"));
-		black.add(new Rook(rookName, !WHITE,"h8"));
+		black.add(new Rook(board, rookName, !WHITE, "a8"));
+		black.add(new Rook(board, rookName, !WHITE,"h8"));
 		
-		black.add(new Bishop(bishopName, !WHITE, "c8"));
-		black.add(new Bishop(bishopName, !WHITE, "f8"));
+		black.add(new Bishop(board, bishopName, !WHITE, "c8"));
+		black.add(new Bishop(board, bishopName, !WHITE, "f8"));
 		
-		black.add(new Queen(queenName, !WHITE, "d8"));
+		black.add(new Queen(board, queenName, !WHITE, "d8"));
 		
 		char letter = firstLetter;
 		for (int i = 0; i < numColumns; i++) {
 			String pos = letter + "" + blackPawnPosition;
-			black.add(new BlackPawn(pawnName, !WHITE, pos));
+			black.add(new BlackPawn(board, pawnName, !WHITE, pos));
 			letter = (char) (letter + 1);
 		}
 		
-		black.add(new Knight(knightName, !WHITE, "b8"));
-		black.add(new Knight(knightName, !WHITE, "g8"));
+		black.add(new Knight(board, knightName, !WHITE, "b8"));
+		black.add(new Knight(board, knightName, !WHITE, "g8"));
 		
-		black.add(new King(kingName, !WHITE, "e8"));
+		black.add(new King(board, kingName, !WHITE, "e8"));
 		return black;
 	}
-	
-	public static ArrayList<Piece> getWhite() {
-		return whitePieces;
-	}
-	
-	public static ArrayList<Piece> getBlack() {
-		return blackPieces;
-	}
 }
\ No newline at end of file
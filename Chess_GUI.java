@@ -16,8 +16,11 @@ import java.util.Random;
 @SuppressWarnings("deprecation")
 public class Chess_GUI extends Observable implements chessInterface {
 	
+	private final Board board;
 	private final JFrame gameFrame;
 	public final BoardPanel boardPanel;
+	// The moves played through the window, in SAN, one move number a line
+	private final JTextArea moveLog;
 	
 	private Square sourceSquare;
 	private Square destSquare;
@@ -27,17 +30,28 @@ public class Chess_GUI extends Observable implements chessInterface {
 	private final static Dimension OUTER_FRAME_DIMENSION = new Dimension(600,600);
 	private final static Dimension BOARD_PANEL_DIMENSION = new Dimension(400,350);
 	private final static Dimension TILE_PANEL_DIMENSION = new Dimension(10,10);
+	private final static Dimension MOVE_LOG_DIMENSION = new Dimension(140,350);
 	private final static String defaultPieceImagePath = "/Users/kunal/eclipse-workspace/Chess/src/";
 	private final Color lightTileColor = Color.decode("#FFFACD");
 	private final Color darkTileColor = Color.decode("#593E1A");
 	
-	public Chess_GUI() {
+	/*
+	 * Opens a window showing the board passed in; moves made in the window
+	 * are played on that board.
+	 */
+	public Chess_GUI(Board b) {
+		board = b;
 		boardDirection = BoardDirection.NORMAL;
 		gameFrame = new JFrame("Chess");
 		gameFrame.setLayout(new BorderLayout());
 		gameFrame.setSize(OUTER_FRAME_DIMENSION);
 		boardPanel = new BoardPanel();
 		gameFrame.add(boardPanel, BorderLayout.CENTER);
+		moveLog = new JTextArea();
+		moveLog.setEditable(false);
+		JScrollPane logPane = new JScrollPane(moveLog);
+		logPane.setPreferredSize(MOVE_LOG_DIMENSION);
+		gameFrame.add(logPane, BorderLayout.EAST);
 		//addObserver(new Watcher());
 		gameFrame.setVisible(true);
 	}
@@ -70,19 +84,37 @@ public class Chess_GUI extends Observable implements chessInterface {
 		abstract BoardDirection opposite();
 	}
 	
-	private static class Watcher implements Observer {
+	private class Watcher implements Observer {
 		@Override
 		public void update(Observable o, Object arg) {
 			String player = board.masterWhiteTurn ? "white" : "black";
 			if (board.isCheckmate) {
-				JOptionPane.showMessageDialog(Chess_Engine.mainGUI.boardPanel, "Game over: Player " + player + " is in checkmate", "Game Over", JOptionPane.INFORMATION_MESSAGE);
+				JOptionPane.showMessageDialog(boardPanel, "Game over: Player " + player + " is in checkmate", "Game Over", JOptionPane.INFORMATION_MESSAGE);
 			}
 			if (board.isStalemate) {
-				JOptionPane.showMessageDialog(Chess_Engine.mainGUI.boardPanel, "Game over: Player " + player + " is in stalemate", "Game Over", JOptionPane.INFORMATION_MESSAGE);
+				JOptionPane.showMessageDialog(boardPanel, "Game over: Player " + player + " is in stalemate", "Game Over", JOptionPane.INFORMATION_MESSAGE);
 			}
 		}
 	}
 	
+	/*
+	 * Adds a move just played to the log, with the fullmove number of the
+	 * position it was played in: white's moves start a line with their
+	 * number, black's end it. A game set up with black to move starts with
+	 * the number and "...".
+	 */
+	private void logMove(String san, boolean white, int number) {
+		if (white) {
+			moveLog.append(number + ". " + san + " ");
+		}
+		else if (board.plyCount() == 1) {
+			moveLog.append(number + "... " + san + "\n");
+		}
+		else {
+			moveLog.append(san + "\n");
+		}
+	}
+	
 	public class BoardPanel extends JPanel {
 		final List<TilePanel> boardTiles;
 		
@@ -158,11 +190,17 @@ public class Chess_GUI extends Observable implements chessInterface {
 							// Safety reasons: realMove NEEDS to be true here;
 							// subsequent move is by player
 							board.realMove = REAL_MOVE;
-							if (pieceMoved.makeMove(destSquare.name)) {
+							// The move is written down before it is played:
+							// SAN depends on the position it is played in
+							int move = board.findLegalMove(sourceSquare.index, destSquare.index, QUEEN);
+							String san = move == Move.NONE ? null : SanWriter.toSan(board, move);
+							boolean whiteMoved = pieceMoved.isWhite;
+							int number = board.fullmoveNumber;
+							if (pieceMoved.makeMove(destSquare.index)) {
 								setChanged();
 								notifyObservers();
 								boardDirection = boardDirection.opposite();
-								// Add move to log
+								logMove(san, whiteMoved, number);
 							}
 							sourceSquare = null;
 							destSquare = null;
@@ -0,0 +1,623 @@
+/*
+ * This is the search: given a position it picks a move. It is a negamax
+ * alpha-beta search (every score is from the point of view of the player
+ * moving, and a move's score is minus the score of the position it leads
+ * to), run with iterative deepening: depth 1 first, then 2, and so on until
+ * a limit is reached. Each iteration starts with the line the previous one
+ * found best, and the moves of every position are ordered by MoveOrderer,
+ * which makes the cutoffs come early. The principal variation is collected
+ * in a triangular table as the search unwinds.
+ *
+ * Moves are made and taken back on the board's bitboard core only
+ * (makeMove/unmakeMove), into move buffers made once per engine, so the
+ * search does not allocate. The board is left the way it was found.
+ * 
+ * At depth 0 the search does not stop at once: a quiescence search plays
+ * on the captures and promotions (only those the static exchange evaluation
+ * does not find losing) until the position is quiet, so a position is never
+ * scored in the middle of an exchange. The player moving may always stand
+ * pat, that is take the static evaluation instead of capturing.
+ * 
+ * The search is selective: it spends less time on moves unlikely to
+ * matter. Every move after the first is searched with a null window (just
+ * to show it is no better than the best so far) and searched again with the
+ * full window only if it is. On top of that, each of which SearchLimits can
+ * turn off:
+ *   null move           the player moving passes; if a shallower search
+ *                       still finds the position too good for the other
+ *                       player (score at least beta), it is cut off without
+ *                       looking at the moves. Not done in check, twice in a
+ *                       row, or with only pawns left (zugzwang).
+ *   late move reductions quiet moves ordered late are searched less deep,
+ *                       the later and deeper the more, and searched again
+ *                       at full depth if they turn out better than alpha.
+ *   futility            one or two plies from the leaves, quiet moves that
+ *                       do not give check are skipped when the static
+ *                       evaluation plus a margin is still below alpha.
+ *   razoring            in the same case with a bigger margin, the position
+ *                       is given to the quiescence search right away, and
+ *                       left there if that confirms it.
+ * None of these is done where the exact score is wanted (a window wider
+ * than one), in check or at the root.
+ * 
+ * Positions already searched are kept in a transposition table: the best
+ * move found there is tried first, and a deep enough result ends the search
+ * of the position at once. With more than one thread (lazy SMP), every
+ * thread searches the same root position on its own copy of the board and
+ * they all share the table, so what one thread finds saves the others work.
+ * The helpers skip some of the depths, each on a schedule of its own (see
+ * SKIP_SIZE), so that at any time they are spread over the depths around
+ * the calling thread's rather than all searching the same one. The calling
+ * thread's result is the one returned.
+ *
+ * Usage:
+ *   java Engine [depth [threads [fen]]]    searches the position (the start
+ *                                          position if none is given) to
+ *                                          depth (6 if not given)
+ *   java Engine bench depth threads [fen]  searches to depth with 1, 2, ...
+ *                                          up to threads threads and prints
+ *                                          the time to depth of each
+ *   java Engine selective depth threads [fen]
+ *                                          searches to depth with no
+ *                                          selective search, each kind on
+ *                                          its own, then all of them, and
+ *                                          prints the nodes and time of each
+ */
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class Engine implements chessInterface {
+
+	// Score of being mated now; being mated n plies from the root scores
+	// -(MATE - n)
+	public final static int MATE = 32000;
+	public final static int INFINITY = 32767;
+	public final static int maxSearchDepth = 64;
+	private final static int defaultDepth = 6;
+	// Nodes searched between looks at the clock: System.nanoTime is cheap,
+	// but not so cheap it can be called at every node
+	private final static int checkInterval = 1024;
+	// Size of the table made for a search when none is given
+	private final static int defaultHashMegabytes = 16;
+	// Entries of each engine's pawn table
+	private final static int pawnTableEntries = 1 << 14;
+	// Selective search: shallowest depth each is done at (deepest for
+	// futility and razoring) and the margins, indexed by depth
+	private final static int nullMoveMinDepth = 3;
+	private final static int lateMoveMinDepth = 3;
+	// Moves searched at full depth before any is reduced
+	private final static int lateMoveFirst = 3;
+	private final static int futilityMaxDepth = 2;
+	private final static int[] FUTILITY_MARGIN = {0, 200, 500};
+	private final static int razorMaxDepth = 2;
+	private final static int[] RAZOR_MARGIN = {0, 300, 600};
+	// Plies a late move is reduced by, indexed by depth and by its place in
+	// the move list
+	private final static int[][] REDUCTIONS = new int[maxSearchDepth + 1][maxMoves];
+	// Depth schedule of the helpers: helper id skips the depths d with
+	// ((d + SKIP_PHASE[i]) / SKIP_SIZE[i]) odd, i being (id - 1) modulo the
+	// length of the tables. The first two skip every other depth (one the
+	// odd ones, one the even ones), the next four two depths out of four,
+	// and so on, each starting at a different point.
+	private final static int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+	private final static int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+	// Names of the runs of "java Engine selective"
+	private final static String[] SELECTIVE_RUNS = {"none", "null move", "late moves", "futility", "razoring", "all"};
+
+	static {
+		for (int depth = 1; depth <= maxSearchDepth; depth++) {
+			for (int i = 1; i < maxMoves; i++) {
+				REDUCTIONS[depth][i] = (int) (0.75 + Math.log(depth) * Math.log(i) / 2.25);
+			}
+		}
+	}
+
+	private final Board board;
+	private final TranspositionTable table;
+	// Set by the main thread (engine 0) when it is done, to stop the helpers
+	private final AtomicBoolean stop;
+	// 0 for the engine on the calling thread, 1.. for the helpers
+	private final int id;
+	// One move buffer per ply
+	private final int[][] moves;
+	// Triangular principal variation table: pv[ply] holds the best line
+	// found from ply on, up to pvLength[ply]
+	private final int[][] pv;
+	private final int[] pvLength;
+	private final MoveOrderer orderer;
+	private final PawnTable pawns;
+	// Best line of the last finished iteration, tried first by the next one
+	private final int[] previousPv;
+	private int previousPvLength;
+	// Set while the node about to be searched is on that line: only there
+	// is its move tried first
+	private boolean followPv;
+	private long nodes;
+	private long nodeLimit;
+	private long deadline;
+	// Set once the limits are reached; the search unwinds without using
+	// the scores of the unfinished iteration
+	private boolean stopped;
+	private boolean canStop;
+	// Selective search allowed, from the limits
+	private boolean nullMove;
+	private boolean lateMoveReductions;
+	private boolean futility;
+	private boolean razoring;
+
+	public Engine(Board b) {
+		this(b, new TranspositionTable(defaultHashMegabytes), new MoveOrderer(maxSearchDepth),
+			new PawnTable(pawnTableEntries), new AtomicBoolean(), 0);
+	}
+	
+	public Engine(Board b, TranspositionTable t, MoveOrderer o, PawnTable p, AtomicBoolean s, int i) {
+		board = b;
+		table = t;
+		orderer = o;
+		pawns = p;
+		stop = s;
+		id = i;
+		moves = new int[maxSearchDepth + 1][maxMoves];
+		pv = new int[maxSearchDepth + 1][maxSearchDepth + 1];
+		pvLength = new int[maxSearchDepth + 1];
+		previousPv = new int[maxSearchDepth + 1];
+	}
+
+	public static void main(String[] args) {
+		boolean bench = args.length > 0 && args[0].equals("bench");
+		boolean selective = args.length > 0 && args[0].equals("selective");
+		int first = bench || selective ? 1 : 0;
+		int depth = args.length > first ? Integer.parseInt(args[first]) : defaultDepth;
+		int threads = args.length > first + 1 ? Integer.parseInt(args[first + 1]) : 1;
+		Board b = new Board();
+		if (args.length > first + 2) {
+			StringBuilder fen = new StringBuilder();
+			for (int i = first + 2; i < args.length; i++) {
+				fen.append(args[i]).append(' ');
+			}
+			b.setUpPosition(fen.toString());
+		}
+		else {
+			Chess_Engine.whiteSetUp(b);
+			Chess_Engine.blackSetUp(b);
+		}
+		SearchLimits limits = new SearchLimits(depth);
+		if (bench) {
+			long oneThread = 0;
+			for (int t = 1; t <= threads; t++) {
+				limits.threads = t;
+				SearchResult result = search(b, limits);
+				oneThread = t == 1 ? result.nanos : oneThread;
+				System.out.println(String.format("threads %2d: time to depth %d %8.3fs  speedup %5.2f  %s", t, depth,
+					result.nanos / NANOS_PER_SEC, (double) oneThread / result.nanos, result));
+			}
+			return;
+		}
+		limits.threads = threads;
+		if (selective) {
+			for (int run = 0; run < SELECTIVE_RUNS.length; run++) {
+				boolean all = run == SELECTIVE_RUNS.length - 1;
+				limits.nullMove = all || run == 1;
+				limits.lateMoveReductions = all || run == 2;
+				limits.futility = all || run == 3;
+				limits.razoring = all || run == 4;
+				SearchResult result = search(b, limits);
+				System.out.println(String.format("%-10s nodes %10d  time %8.3fs  %s", SELECTIVE_RUNS[run],
+					result.nodes, result.nanos / NANOS_PER_SEC, result));
+			}
+			return;
+		}
+		limits.info = System.out;
+		SearchResult result = search(b, limits);
+		System.out.println("bestmove " + Move.toString(result.bestMove));
+	}
+
+	/*
+	 * Searches the board's position for the player moving
+	 * (internalWhiteTurn) within the limits passed in and returns the best
+	 * move found, its score and the principal variation. If the player moving
+	 * has no legal move the best move is Move.NONE.
+	 */
+	public static SearchResult search(Board b, SearchLimits limits) {
+		TranspositionTable table = limits.table != null ? limits.table : newTable(limits);
+		table.newSearch();
+		AtomicBoolean stop = new AtomicBoolean();
+		Engine main = new Engine(b, table, orderer(limits, 0), pawnTable(limits, 0), stop, 0);
+		if (limits.threads <= 1) {
+			return main.run(limits);
+		}
+		Engine[] helpers = new Engine[limits.threads - 1];
+		Thread[] threads = new Thread[helpers.length];
+		for (int i = 0; i < helpers.length; i++) {
+			Engine helper = new Engine(new Board(b), table, orderer(limits, i + 1), pawnTable(limits, i + 1), stop,
+				i + 1);
+			helpers[i] = helper;
+			threads[i] = new Thread(() -> helper.run(limits), "search-" + (i + 1));
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+		SearchResult result = main.run(limits);
+		stop.set(true);
+		long nodes = main.nodes;
+		for (int i = 0; i < threads.length; i++) {
+			try {
+				threads[i].join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			nodes += helpers[i].nodes;
+		}
+		return new SearchResult(result.bestMove, result.score, result.pv, result.depth, nodes, result.nanos,
+			result.branchingFactor);
+	}
+
+	/*
+	 * Returns the move orderer the limits passed in keep for the engine with
+	 * the id passed in, a new one if they keep none for it.
+	 */
+	private static MoveOrderer orderer(SearchLimits limits, int id) {
+		if (limits.orderers != null && id < limits.orderers.length) {
+			return limits.orderers[id];
+		}
+		return new MoveOrderer(maxSearchDepth);
+	}
+
+	/*
+	 * Same as orderer above, for the pawn table.
+	 */
+	private static PawnTable pawnTable(SearchLimits limits, int id) {
+		if (limits.pawnTables != null && id < limits.pawnTables.length) {
+			return limits.pawnTables[id];
+		}
+		return newPawnTable();
+	}
+
+	/*
+	 * Makes the table the limits passed in ask for (see
+	 * SearchLimits.hashMegabytes and offHeapHash), for a search given none
+	 * or a caller keeping one from one search to the next.
+	 */
+	public static TranspositionTable newTable(SearchLimits limits) {
+		int megabytes = limits.hashMegabytes > 0 ? limits.hashMegabytes : defaultHashMegabytes;
+		return limits.offHeapHash ? new OffHeapTranspositionTable(megabytes) : new TranspositionTable(megabytes);
+	}
+
+	/*
+	 * Makes a pawn table of the size each engine's has, for a caller keeping
+	 * its own (see SearchLimits.pawnTables).
+	 */
+	public static PawnTable newPawnTable() {
+		return new PawnTable(pawnTableEntries);
+	}
+
+	/*
+	 * Runs the iterations, deeper each time, until a limit is reached, and
+	 * returns the result of the last one that finished. The first iteration
+	 * always finishes, so there is always a move to play.
+	 */
+	public SearchResult run(SearchLimits limits) {
+		long start = System.nanoTime();
+		nodes = 0;
+		nodeLimit = limits.nodes;
+		deadline = limits.millis > 0 ? start + limits.millis * 1000000 : 0;
+		// Only the main engine keeps time; it stops the helpers
+		TimeManager time = id == 0 ? limits.time : null;
+		if (time != null) {
+			deadline = deadline == 0 ? time.hardDeadline() : Math.min(deadline, time.hardDeadline());
+		}
+		stopped = false;
+		canStop = false;
+		nullMove = limits.nullMove;
+		lateMoveReductions = limits.lateMoveReductions;
+		futility = limits.futility;
+		razoring = limits.razoring;
+		previousPvLength = 0;
+		orderer.newSearch();
+		long previousIterationNodes = 0;
+		int maxDepth = limits.depth > 0 ? Math.min(limits.depth, maxSearchDepth) : maxSearchDepth;
+		SearchResult result = null;
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			if (skipsDepth(depth)) {
+				continue;
+			}
+			long nodesBefore = nodes;
+			followPv = true;
+			int score = negamax(depth, -INFINITY, INFINITY, 0, false);
+			if (stopped) {
+				break;
+			}
+			// Effective branching factor: how many times more nodes this
+			// iteration took than the one before
+			long iterationNodes = nodes - nodesBefore;
+			double branchingFactor = previousIterationNodes > 0 ? (double) iterationNodes / previousIterationNodes : 0;
+			previousIterationNodes = iterationNodes;
+			int[] line = new int[pvLength[0]];
+			System.arraycopy(pv[0], 0, line, 0, line.length);
+			System.arraycopy(line, 0, previousPv, 0, line.length);
+			previousPvLength = line.length;
+			int best = line.length > 0 ? line[0] : Move.NONE;
+			result = new SearchResult(best, score, line, depth, nodes, System.nanoTime() - start, branchingFactor);
+			if (limits.info != null && id == 0) {
+				limits.info.println(result);
+			}
+			// Nothing more to learn once there are no moves or a mate is
+			// found
+			if (best == Move.NONE || result.isMate()) {
+				break;
+			}
+			canStop = true;
+			if (time != null) {
+				time.iterationDone(best, score);
+				if (time.pastSoftDeadline()) {
+					break;
+				}
+			}
+		}
+		if (limits.info != null && id == 0) {
+			limits.info.println(String.format("pawn table hits %.1f%%", 100 * pawns.hitRate()));
+		}
+		return result;
+	}
+
+	/*
+	 * Whether this engine leaves out the iteration of the depth passed in;
+	 * never for the main engine (see SKIP_SIZE).
+	 */
+	private boolean skipsDepth(int depth) {
+		if (id == 0) {
+			return false;
+		}
+		int i = (id - 1) % SKIP_SIZE.length;
+		return (depth + SKIP_PHASE[i]) / SKIP_SIZE[i] % 2 == 1;
+	}
+
+	/*
+	 * Returns the score of the position for the player moving, searching
+	 * depth plies deep. Scores outside (alpha, beta) only say which side of
+	 * the window the real score is on. nullAllowed is false right after a
+	 * null move (and at the root).
+	 */
+	private int negamax(int depth, int alpha, int beta, int ply, boolean nullAllowed) {
+		// Any node searched from here on is off the line, but the first move
+		// of this one if it is the line's
+		boolean onPv = followPv && ply < previousPvLength;
+		followPv = false;
+		pvLength[ply] = ply;
+		nodes++;
+		if ((nodes & (checkInterval - 1)) == 0) {
+			checkLimits();
+		}
+		if (stopped) {
+			return 0;
+		}
+		if (depth <= 0 || ply == maxSearchDepth) {
+			return quiescence(alpha, beta, ply);
+		}
+		// A result for this position from a search at least as deep may be
+		// enough to answer right away (never at the root, which needs its
+		// line)
+		long key = board.zobristKey;
+		long entry = table.probe(key);
+		int hashMove = TranspositionTable.move(entry);
+		if (entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+			int score = fromTable(TranspositionTable.score(entry), ply);
+			int bound = TranspositionTable.bound(entry);
+			if (bound == TranspositionTable.EXACT
+				|| (bound == TranspositionTable.LOWER && score >= beta)
+				|| (bound == TranspositionTable.UPPER && score <= alpha)) {
+				return score;
+			}
+		}
+		boolean inCheck = board.checkers(board.internalWhiteTurn) != 0;
+		// Pruning only where just a bound is wanted (a null window), and
+		// never near a mate score
+		boolean canPrune = ply > 0 && !inCheck && beta - alpha == 1 && Math.abs(beta) < MATE - maxSearchDepth;
+		int staticScore = canPrune ? Evaluation.evaluate(board, pawns) : 0;
+		if (canPrune && razoring && depth <= razorMaxDepth && hashMove == Move.NONE
+			&& staticScore + RAZOR_MARGIN[depth] <= alpha) {
+			int target = alpha - RAZOR_MARGIN[depth];
+			int score = quiescence(target, target + 1, ply);
+			if (stopped) {
+				return 0;
+			}
+			if (score <= target) {
+				return score;
+			}
+		}
+		if (canPrune && nullMove && nullAllowed && depth >= nullMoveMinDepth && staticScore >= beta
+			&& board.hasNonPawnMaterial(board.internalWhiteTurn)) {
+			int reduction = depth > 6 ? 3 : 2;
+			board.makeNullMove();
+			int score = -negamax(depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+			board.unmakeNullMove();
+			if (stopped) {
+				return 0;
+			}
+			if (score >= beta) {
+				// A mate found after passing is not a real one
+				return score >= MATE - maxSearchDepth ? beta : score;
+			}
+		}
+		boolean futile = canPrune && futility && depth <= futilityMaxDepth
+			&& staticScore + FUTILITY_MARGIN[depth] <= alpha;
+		int[] list = moves[ply];
+		int count = board.generateLegalMoves(list);
+		if (count == 0) {
+			// Mated, or stalemate
+			return inCheck ? -MATE + ply : 0;
+		}
+		orderer.order(board, list, count, hashMove, ply);
+		if (onPv) {
+			moveToFront(list, count, previousPv[ply]);
+		}
+		int originalAlpha = alpha;
+		int best = -INFINITY;
+		int bestMove = Move.NONE;
+		int searched = 0;
+		for (int i = 0; i < count; i++) {
+			int move = list[i];
+			boolean quiet = !Move.isCapture(move) && Move.promotion(move) == 0;
+			board.makeMove(move);
+			boolean givesCheck = board.checkers(board.internalWhiteTurn) != 0;
+			if (futile && quiet && !givesCheck && searched > 0) {
+				board.unmakeMove();
+				continue;
+			}
+			int score;
+			if (searched == 0) {
+				followPv = onPv && move == previousPv[ply];
+				score = -negamax(depth - 1, -beta, -alpha, ply + 1, true);
+			}
+			else {
+				int reduction = 0;
+				if (lateMoveReductions && depth >= lateMoveMinDepth && i >= lateMoveFirst && quiet
+					&& !inCheck && !givesCheck && !orderer.isKiller(move, ply)) {
+					reduction = Math.min(REDUCTIONS[Math.min(depth, maxSearchDepth)][i], depth - 2);
+				}
+				score = -negamax(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+				if (score > alpha && reduction > 0) {
+					score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1, true);
+				}
+				if (score > alpha && score < beta) {
+					score = -negamax(depth - 1, -beta, -alpha, ply + 1, true);
+				}
+			}
+			board.unmakeMove();
+			searched++;
+			if (stopped) {
+				return 0;
+			}
+			if (score > best) {
+				best = score;
+				bestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					pv[ply][ply] = move;
+					int length = pvLength[ply + 1];
+					System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+					pvLength[ply] = length;
+					if (alpha >= beta) {
+						orderer.cutoff(board, move, depth, ply);
+						break;
+					}
+				}
+			}
+		}
+		int bound = best >= beta ? TranspositionTable.LOWER
+			: best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+		table.store(key, bestMove, toTable(best, ply), depth, bound);
+		return best;
+	}
+	
+	/*
+	 * Returns the score of the position once the captures are played out.
+	 * In check every move is looked at, since standing pat is not allowed
+	 * there; otherwise only the captures and promotions that do not lose
+	 * material by the static exchange evaluation.
+	 */
+	private int quiescence(int alpha, int beta, int ply) {
+		pvLength[ply] = ply;
+		nodes++;
+		if ((nodes & (checkInterval - 1)) == 0) {
+			checkLimits();
+		}
+		if (stopped) {
+			return 0;
+		}
+		// The arrays indexed by ply end here, so even a check is not
+		// answered any more
+		if (ply >= maxSearchDepth) {
+			return Evaluation.evaluate(board, pawns);
+		}
+		boolean inCheck = board.checkers(board.internalWhiteTurn) != 0;
+		int best = -INFINITY;
+		if (!inCheck) {
+			best = Evaluation.evaluate(board, pawns);
+			if (best >= beta) {
+				return best;
+			}
+			alpha = Math.max(alpha, best);
+		}
+		int[] list = moves[ply];
+		int count = inCheck ? board.generateLegalMoves(list) : board.generateLegalCaptures(list);
+		if (inCheck && count == 0) {
+			return -MATE + ply;
+		}
+		orderer.order(board, list, count, Move.NONE, ply);
+		for (int i = 0; i < count; i++) {
+			int move = list[i];
+			if (!inCheck && board.see(move) < 0) {
+				continue;
+			}
+			board.makeMove(move);
+			int score = -quiescence(-beta, -alpha, ply + 1);
+			board.unmakeMove();
+			if (stopped) {
+				return 0;
+			}
+			if (score > best) {
+				best = score;
+				if (score > alpha) {
+					alpha = score;
+					pv[ply][ply] = move;
+					int length = pvLength[ply + 1];
+					System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+					pvLength[ply] = length;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return best;
+	}
+	
+	/*
+	 * Mate scores count plies from the root; in the table they count plies
+	 * from the position stored, so that they stay right when the position is
+	 * reached at another ply.
+	 */
+	private static int toTable(int score, int ply) {
+		if (score >= MATE - maxSearchDepth) {
+			return score + ply;
+		}
+		if (score <= -MATE + maxSearchDepth) {
+			return score - ply;
+		}
+		return score;
+	}
+	
+	private static int fromTable(int score, int ply) {
+		if (score >= MATE - maxSearchDepth) {
+			return score - ply;
+		}
+		if (score <= -MATE + maxSearchDepth) {
+			return score + ply;
+		}
+		return score;
+	}
+
+	private void checkLimits() {
+		if (stop.get()) {
+			stopped = true;
+		}
+		if (!canStop || id != 0) {
+			return;
+		}
+		if ((nodeLimit > 0 && nodes >= nodeLimit) || (deadline != 0 && System.nanoTime() >= deadline)) {
+			stopped = true;
+		}
+	}
+
+	/*
+	 * Puts the move passed in first in the list, if it is there.
+	 */
+	private static void moveToFront(int[] list, int count, int move) {
+		for (int i = 0; i < count; i++) {
+			if (list[i] == move) {
+				System.arraycopy(list, 0, list, 1, i);
+				list[0] = move;
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * The clock of one game: the time each player has used and has left. A
+ * time control gives each player a base time, an increment added after
+ * each of their moves and, optionally, a number of moves to make in the
+ * base time, after which the base time is added again (40 moves in 90
+ * minutes, say). A clock made without a base time is untimed: it only adds
+ * up the time each player has used.
+ *
+ * One player's time runs at a time. Starting the clock starts a player's
+ * turn; pressing it ends that turn, charges its time to that player, adds
+ * the increment and starts the other player's turn. Times are kept in
+ * nanoseconds from System.nanoTime. Like the board, a clock belongs to one
+ * game and is not safe to share between threads.
+ */
+public class GameClock implements chessInterface {
+
+	private final static long nanosPerMilli = 1000000;
+	private final static int NONE = -1;
+
+	private final long base;
+	private final long increment;
+	private final int movesPerPeriod;
+	// Indexed by WHITE_SIDE and BLACK_SIDE
+	private final long[] used;
+	private final long[] left;
+	private final int[] moves;
+	// Side whose time is running, NONE if the clock is stopped
+	private int running;
+	private long turnStarted;
+
+	/*
+	 * Makes an untimed clock.
+	 */
+	public GameClock() {
+		this(0, 0, 0);
+	}
+
+	/*
+	 * Makes a clock for a game in baseMillis each (sudden death), plus
+	 * incrementMillis for every move made.
+	 */
+	public GameClock(long baseMillis, long incrementMillis) {
+		this(baseMillis, incrementMillis, 0);
+	}
+
+	/*
+	 * Makes a clock giving baseMillis for every movesPerPeriod moves (0 for
+	 * the whole game), plus incrementMillis for every move made.
+	 */
+	public GameClock(long baseMillis, long incrementMillis, int movesPerPeriod) {
+		if (baseMillis < 0 || incrementMillis < 0 || movesPerPeriod < 0) {
+			throw new IllegalArgumentException("Not a time control: " + baseMillis + "+" + incrementMillis
+				+ " in " + movesPerPeriod + " moves");
+		}
+		base = baseMillis * nanosPerMilli;
+		increment = incrementMillis * nanosPerMilli;
+		this.movesPerPeriod = movesPerPeriod;
+		used = new long[numPlayers];
+		left = new long[] {base, base};
+		moves = new int[numPlayers];
+		running = NONE;
+	}
+
+	public boolean isTimed() {
+		return base > 0;
+	}
+
+	/*
+	 * Starts the turn of the player of the color passed in, stopping the
+	 * other player's time without charging it.
+	 */
+	public void start(boolean white) {
+		running = white ? WHITE_SIDE : BLACK_SIDE;
+		turnStarted = System.nanoTime();
+	}
+
+	/*
+	 * Ends the turn of the player whose time is running: charges the time
+	 * since the turn started, adds the increment (and the base time again
+	 * when a period is over) and starts the other player's turn. Returns how
+	 * long the turn took, in nanoseconds.
+	 */
+	public long press() {
+		if (running == NONE) {
+			throw new IllegalStateException("The clock is not running");
+		}
+		long now = System.nanoTime();
+		long turn = now - turnStarted;
+		int side = running;
+		used[side] += turn;
+		left[side] -= turn;
+		moves[side]++;
+		if (left[side] >= 0) {
+			left[side] += increment;
+			if (movesPerPeriod > 0 && moves[side] % movesPerPeriod == 0) {
+				left[side] += base;
+			}
+		}
+		running = 1 - side;
+		turnStarted = now;
+		return turn;
+	}
+
+	/*
+	 * Stops the clock, charging the running turn's time to its player.
+	 */
+	public void stop() {
+		if (running != NONE) {
+			long turn = System.nanoTime() - turnStarted;
+			used[running] += turn;
+			left[running] -= turn;
+			running = NONE;
+		}
+	}
+
+	/*
+	 * Returns the nanoseconds the player of the color passed in has used,
+	 * the running turn included.
+	 */
+	public long used(boolean white) {
+		int side = white ? WHITE_SIDE : BLACK_SIDE;
+		return used[side] + (side == running ? System.nanoTime() - turnStarted : 0);
+	}
+
+	/*
+	 * Returns the nanoseconds the player of the color passed in has left,
+	 * the running turn taken off; negative once the player's flag has
+	 * fallen. Meaningless for an untimed clock.
+	 */
+	public long remaining(boolean white) {
+		int side = white ? WHITE_SIDE : BLACK_SIDE;
+		return left[side] - (side == running ? System.nanoTime() - turnStarted : 0);
+	}
+
+	public long increment() {
+		return increment;
+	}
+
+	/*
+	 * Returns the moves the player of the color passed in must still make
+	 * before the base time is added again, 0 if it never is.
+	 */
+	public int movesToGo(boolean white) {
+		if (movesPerPeriod == 0) {
+			return 0;
+		}
+		return movesPerPeriod - moves[white ? WHITE_SIDE : BLACK_SIDE] % movesPerPeriod;
+	}
+
+	/*
+	 * Returns true if the player of the color passed in has run out of time.
+	 */
+	public boolean flagFell(boolean white) {
+		return isTimed() && remaining(white) < 0;
+	}
+
+	/*
+	 * Returns the time the player of the color passed in has left ("4:59",
+	 * "1:02:03"), or has used on an untimed clock.
+	 */
+	public String toString(boolean white) {
+		long seconds = Math.max(isTimed() ? remaining(white) : used(white), 0) / (1000 * nanosPerMilli);
+		long hours = seconds / secondsInHour;
+		long minutes = seconds % secondsInHour / secondsInMinute;
+		seconds %= secondsInMinute;
+		return hours > 0 ? String.format("%d:%02d:%02d", hours, minutes, seconds)
+			: String.format("%d:%02d", minutes, seconds);
+	}
+}
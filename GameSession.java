@@ -0,0 +1,224 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/*
+ * This is one game being hosted: it owns its board (which logs the moves
+ * played so far) and its clock. Clients on any thread hand the session
+ * work (a move, or a question about the game) and get a future back.
+ *
+ * The work of a session is done one task at a time, in the order it was
+ * handed in: tasks go into the session's own queue, and the first task
+ * queued while the session is idle schedules the session on the executor,
+ * which then runs every queued task before letting go. So only one thread
+ * at a time ever touches the board, without a lock, and sessions never wait
+ * on each other. An idle session holds no thread at all, only its board,
+ * which is what lets one program host thousands of games.
+ *
+ * Listeners are told about every move played, on the thread running the
+ * session; they may read the board and hand the session more work.
+ */
+public class GameSession implements chessInterface {
+
+	/*
+	 * Told about every move played in a session.
+	 */
+	public interface Listener {
+		void moveMade(GameSession session, int move);
+	}
+
+	private final static Executor defaultExecutor = defaultExecutor();
+
+	public final Board board;
+	// Only touched by the session's tasks, like the board
+	public final GameClock clock;
+	private final Executor executor;
+	private final ConcurrentLinkedQueue<Runnable> mailbox;
+	// True while the session is scheduled on the executor or running
+	private final AtomicBoolean scheduled;
+	private final CopyOnWriteArrayList<Listener> listeners;
+
+	/*
+	 * Makes a session in the start position, run on the default executor.
+	 */
+	public GameSession() {
+		this(defaultExecutor);
+	}
+
+	/*
+	 * Makes an untimed session in the start position, run on the executor
+	 * passed in. Any number of sessions can share one executor.
+	 */
+	public GameSession(Executor e) {
+		this(e, new GameClock());
+	}
+
+	/*
+	 * Makes a session in the start position played on the clock passed in,
+	 * run on the executor passed in. White's time starts running now.
+	 */
+	public GameSession(Executor e, GameClock c) {
+		executor = e;
+		clock = c;
+		board = new Board();
+		Chess_Engine.whiteSetUp(board);
+		Chess_Engine.blackSetUp(board);
+		mailbox = new ConcurrentLinkedQueue<>();
+		scheduled = new AtomicBoolean();
+		listeners = new CopyOnWriteArrayList<>();
+		clock.start(WHITE);
+	}
+
+	public void addListener(Listener l) {
+		listeners.add(l);
+	}
+
+	public void removeListener(Listener l) {
+		listeners.remove(l);
+	}
+
+	/*
+	 * Asks for the piece on from to move to to, a pawn reaching the last row
+	 * becoming the piece type promotion. The future is true once the move has
+	 * been played, false if it is not legal or the game is over.
+	 */
+	public CompletableFuture<Boolean> submitMove(int from, int to, int promotion) {
+		return submit(s -> s.playMove(from, to, promotion));
+	}
+
+	/*
+	 * Same as submitMove above, with square names ("e2", "e4"); pawns are
+	 * promoted to a queen.
+	 */
+	public CompletableFuture<Boolean> submitMove(String from, String to) {
+		return submitMove(Board.squareIndex(from), Board.squareIndex(to), QUEEN);
+	}
+
+	/*
+	 * Same as submitMove above, for a move packed as in Move (only its
+	 * squares and promotion are looked at).
+	 */
+	public CompletableFuture<Boolean> submitMove(int move) {
+		return submitMove(Move.from(move), Move.to(move), Move.promotion(move) == 0 ? QUEEN : Move.promotion(move));
+	}
+
+	/*
+	 * Runs the task passed in on the session, after every task handed in
+	 * before it, and completes the future with what it returns, or with
+	 * whatever it throws (an Error from a search included). This is the
+	 * only safe way to look at the session's board from another thread.
+	 */
+	public <T> CompletableFuture<T> submit(Function<GameSession, T> task) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		mailbox.add(() -> {
+			try {
+				result.complete(task.apply(this));
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		schedule();
+		return result;
+	}
+
+	/*
+	 * Returns the moves played so far (the board's move log). Only call from
+	 * a task of this session.
+	 */
+	public int[] history() {
+		return board.moveLog();
+	}
+
+	/*
+	 * Returns the nanoseconds the player of the color passed in has used.
+	 * Only call from a task of this session.
+	 */
+	public long timeUsed(boolean white) {
+		return clock.used(white);
+	}
+
+	/*
+	 * Returns true once a player is mated or stalemated, or has run out of
+	 * time.
+	 */
+	public boolean isOver() {
+		return board.isCheckmate || board.isStalemate || clock.flagFell(WHITE) || clock.flagFell(!WHITE);
+	}
+
+	/*
+	 * Plays the move if it is legal: presses the clock, records the move and
+	 * tells the listeners. A move made after the player's time ran out is
+	 * not played; the game is over.
+	 */
+	private boolean playMove(int from, int to, int promotion) {
+		if (isOver()) {
+			return false;
+		}
+		board.realMove = REAL_MOVE;
+		board.internalWhiteTurn = board.masterWhiteTurn;
+		int move = board.findLegalMove(from, to, promotion);
+		if (move == Move.NONE) {
+			return false;
+		}
+		clock.press();
+		if (isOver()) {
+			clock.stop();
+			return false;
+		}
+		board.playMove(move);
+		if (board.isCheckmate || board.isStalemate) {
+			clock.stop();
+		}
+		for (Listener l : listeners) {
+			l.moveMade(this, move);
+		}
+		return true;
+	}
+
+	/*
+	 * Puts the session on the executor unless it is already there.
+	 */
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			executor.execute(this::drain);
+		}
+	}
+
+	/*
+	 * Runs the queued tasks. A task queued after the queue was found empty
+	 * but before scheduled was cleared would be left behind, so the queue is
+	 * looked at once more after letting go. The session lets go even if a
+	 * task throws, so it is never left scheduled with nothing running it.
+	 */
+	private void drain() {
+		try {
+			Runnable task;
+			while ((task = mailbox.poll()) != null) {
+				task.run();
+			}
+		} finally {
+			scheduled.set(false);
+			if (!mailbox.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+
+	/*
+	 * Virtual threads (Java 21 on) make a blocked session cost next to
+	 * nothing, so they are used when the JVM has them. Otherwise sessions run
+	 * on the common fork/join pool; their tasks are short and never block.
+	 */
+	private static Executor defaultExecutor() {
+		try {
+			return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return ForkJoinPool.commonPool();
+		}
+	}
+}
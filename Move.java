@@ -0,0 +1,73 @@
+/*
+ * Moves handed out by the board's move generator are packed into a single int
+ * so that they can be stored in a plain int[] buffer without making any
+ * objects. This class holds the layout and the helpers to pack and unpack
+ * them. The layout, from the lowest bit up:
+ *   bits 0-5:   square the piece moves from (0..63)
+ *   bits 6-11:  square the piece moves to (0..63)
+ *   bits 12-14: piece type a pawn promotes to, 0 if the move is no promotion
+ *   bits 15-18: flags (CAPTURE, DOUBLE_PUSH, EN_PASSANT, CASTLING)
+ * A move is never 0 (a1 to a1), so 0 can be used as "no move".
+ */
+public class Move implements chessInterface {
+
+	public final static int NONE = 0;
+	public final static int CAPTURE = 1;
+	public final static int DOUBLE_PUSH = 2;
+	public final static int EN_PASSANT = 4;
+	public final static int CASTLING = 8;
+
+	private final static int TO_SHIFT = 6;
+	private final static int PROMOTION_SHIFT = 12;
+	private final static int FLAGS_SHIFT = 15;
+	private final static int SQUARE_MASK = 0x3F;
+	private final static int PROMOTION_MASK = 0x7;
+	private final static int FLAGS_MASK = 0xF;
+
+	/*
+	 * Packs the parts of a move into an int. Promotion is the piece type the
+	 * pawn becomes (KNIGHT..QUEEN) or 0.
+	 */
+	public static int make(int from, int to, int promotion, int flags) {
+		return from | (to << TO_SHIFT) | (promotion << PROMOTION_SHIFT) | (flags << FLAGS_SHIFT);
+	}
+
+	public static int from(int move) {
+		return move & SQUARE_MASK;
+	}
+
+	public static int to(int move) {
+		return (move >>> TO_SHIFT) & SQUARE_MASK;
+	}
+
+	public static int promotion(int move) {
+		return (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+	}
+
+	public static int flags(int move) {
+		return (move >>> FLAGS_SHIFT) & FLAGS_MASK;
+	}
+
+	public static boolean isCapture(int move) {
+		return (flags(move) & CAPTURE) != 0;
+	}
+
+	/*
+	 * Returns the move in coordinate notation ("e2e4", "e7e8q"). Only meant
+	 * for output; nothing on the move path makes strings.
+	 */
+	public static String toString(int move) {
+		StringBuilder s = new StringBuilder();
+		appendSquare(s, from(move));
+		appendSquare(s, to(move));
+		if (promotion(move) != 0) {
+			s.append(Character.toLowerCase(pieceNames[promotion(move)]));
+		}
+		return s.toString();
+	}
+
+	private static void appendSquare(StringBuilder s, int square) {
+		s.append((char) (firstLetter + Bitboards.file(square)));
+		s.append((char) ('1' + Bitboards.rank(square)));
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * This puts the moves of a position in the order the search should try
+ * them: the best move found for the position before (the hash move) first,
+ * then captures, the most valuable victim first and, among those, the least
+ * valuable attacker first (MVV-LVA), then the two killer moves of the ply
+ * (quiet moves that made the search cut off at the same ply elsewhere), then
+ * the other quiet moves by their history score (how often and how deep the
+ * move from that square to that square made the search cut off).
+ *
+ * The moves are sorted inside the move buffer they were generated into,
+ * using a score buffer per ply made once, so ordering never allocates. One
+ * orderer belongs to one search thread. The caller may keep it from one
+ * search to the next (see SearchLimits.orderers), as a Player does for its
+ * game: the positions of the next move are much like those of the last.
+ */
+public class MoveOrderer implements chessInterface {
+
+	private final static int HASH_MOVE = 1 << 30;
+	private final static int CAPTURE = 1 << 28;
+	private final static int FIRST_KILLER = 1 << 27;
+	private final static int SECOND_KILLER = FIRST_KILLER - 1;
+	// History scores are halved once one gets this high, so they stay
+	// below the killers and recent cutoffs count more
+	private final static int maxHistory = 1 << 20;
+	private final static int killersPerPly = 2;
+
+	private final int[][] scores;
+	private final int[][] killers;
+	// Butterfly table: history[side][from][to]
+	private final int[][][] history;
+
+	public MoveOrderer(int maxPly) {
+		scores = new int[maxPly + 1][maxMoves];
+		killers = new int[maxPly + 1][killersPerPly];
+		history = new int[numPlayers][numSquares][numSquares];
+	}
+
+	/*
+	 * Halves the history scores, for a new search, so the cutoffs of the
+	 * last one still count but less than those to come. The killer moves
+	 * are kept: they are only tried in a position that has them.
+	 */
+	public void newSearch() {
+		ageHistory();
+	}
+	
+	private void ageHistory() {
+		for (int[][] side : history) {
+			for (int[] from : side) {
+				for (int to = 0; to < numSquares; to++) {
+					from[to] >>= 1;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Sorts the first count moves of the list, the moves of the player moving
+	 * on the board at the given ply, best first.
+	 */
+	public void order(Board board, int[] list, int count, int hashMove, int ply) {
+		int[] score = scores[ply];
+		int side = board.internalWhiteTurn ? WHITE_SIDE : BLACK_SIDE;
+		for (int i = 0; i < count; i++) {
+			int move = list[i];
+			if (move == hashMove) {
+				score[i] = HASH_MOVE;
+			}
+			else if (Move.isCapture(move) || Move.promotion(move) != 0) {
+				score[i] = CAPTURE + mvvLva(board, move);
+			}
+			else if (move == killers[ply][0]) {
+				score[i] = FIRST_KILLER;
+			}
+			else if (move == killers[ply][1]) {
+				score[i] = SECOND_KILLER;
+			}
+			else {
+				score[i] = history[side][Move.from(move)][Move.to(move)];
+			}
+		}
+		// Insertion sort: the lists are short and often nearly in order
+		for (int i = 1; i < count; i++) {
+			int move = list[i];
+			int s = score[i];
+			int j = i - 1;
+			while (j >= 0 && score[j] < s) {
+				list[j + 1] = list[j];
+				score[j + 1] = score[j];
+				j--;
+			}
+			list[j + 1] = move;
+			score[j + 1] = s;
+		}
+	}
+
+	/*
+	 * Remembers a quiet move that made the search cut off at the given ply
+	 * and depth.
+	 */
+	public void cutoff(Board board, int move, int depth, int ply) {
+		if (Move.isCapture(move) || Move.promotion(move) != 0) {
+			return;
+		}
+		if (killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		int[] fromSquare = history[board.internalWhiteTurn ? WHITE_SIDE : BLACK_SIDE][Move.from(move)];
+		fromSquare[Move.to(move)] += depth * depth;
+		if (fromSquare[Move.to(move)] >= maxHistory) {
+			ageHistory();
+		}
+	}
+
+	public boolean isKiller(int move, int ply) {
+		return move == killers[ply][0] || move == killers[ply][1];
+	}
+
+	/*
+	 * Most valuable victim, least valuable attacker: the victim's value
+	 * decides, the attacker's breaks ties. A promotion adds what the pawn
+	 * becomes.
+	 */
+	private static int mvvLva(Board board, int move) {
+		int attacker = board.mailbox[Move.from(move)] % numPieceTypes;
+		int victim = board.mailbox[Move.to(move)];
+		int value = 0;
+		if ((Move.flags(move) & Move.EN_PASSANT) != 0) {
+			value = pieceValues[PAWN];
+		}
+		else if (victim != EMPTY) {
+			value = pieceValues[victim % numPieceTypes];
+		}
+		if (Move.promotion(move) != 0) {
+			value += pieceValues[Move.promotion(move)];
+		}
+		return value * numPieceTypes + (numPieceTypes - 1 - attacker);
+	}
+}
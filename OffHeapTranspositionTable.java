@@ -0,0 +1,57 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * A transposition table kept outside the Java heap, in direct byte buffers,
+ * so that a table of many gigabytes neither makes the garbage collector's
+ * pauses longer nor needs a heap sized for it. A single buffer holds at most
+ * 2 GB, so the table is split into chunks of 1 GB (smaller tables use one
+ * chunk of their own size) and a slot index picks the chunk with its high
+ * bits. Everything else works the same as in TranspositionTable.
+ *
+ * The memory is set aside once, when the table is made; the JVM must be
+ * allowed that much direct memory (-XX:MaxDirectMemorySize). It is given
+ * back when the table is no longer used and has been collected.
+ */
+public class OffHeapTranspositionTable extends TranspositionTable {
+
+	// Longs per chunk (1 GB)
+	private final static int chunkShift = 27;
+	private final static long chunkMask = (1L << chunkShift) - 1;
+	// Most buckets the table can have (32 GB)
+	private final static int maxOffHeapBuckets = 1 << 30;
+
+	private final ByteBuffer[] chunks;
+
+	/*
+	 * Makes a table taking at most the megabytes passed in.
+	 */
+	public OffHeapTranspositionTable(int megabytes) {
+		super(bucketsFor(megabytes, maxOffHeapBuckets), false);
+		long longs = (long) buckets * longsPerBucket;
+		int chunkLongs = (int) Math.min(longs, 1L << chunkShift);
+		chunks = new ByteBuffer[(int) (longs / chunkLongs)];
+		for (int i = 0; i < chunks.length; i++) {
+			chunks[i] = ByteBuffer.allocateDirect(chunkLongs * Long.BYTES).order(ByteOrder.nativeOrder());
+		}
+	}
+
+	@Override
+	protected long read(long index) {
+		return chunks[(int) (index >>> chunkShift)].getLong((int) (index & chunkMask) << 3);
+	}
+
+	@Override
+	protected void write(long index, long value) {
+		chunks[(int) (index >>> chunkShift)].putLong((int) (index & chunkMask) << 3, value);
+	}
+
+	@Override
+	public void clear() {
+		for (ByteBuffer chunk : chunks) {
+			for (int i = 0; i < chunk.capacity(); i += Long.BYTES) {
+				chunk.putLong(i, 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * This is the pawn structure evaluation and the table that keeps it. The
+ * pawns move far less often than the other pieces, so most positions a
+ * search evaluates share their pawns with many others; their structure is
+ * worked out once per pawn key (Board.pawnKey) and kept here:
+ *   isolated pawns  (no pawn of the same color on the files next to it)
+ *   doubled pawns   (another pawn of the same color ahead on the file)
+ *   passed pawns    (no enemy pawn ahead on its file or the files next to
+ *                    it), worth more the further they are
+ * An entry holds the midgame and endgame scores, white's minus black's, and
+ * the passed pawns of both sides, for what depends on the other pieces too
+ * (see Evaluation).
+ *
+ * The table is direct mapped: a pawn key goes in the entry its low bits
+ * give, replacing whatever was there. It is not shared: each search thread
+ * has its own, so there is nothing to lock. The caller may keep it across
+ * searches (see SearchLimits.pawnTables), as the pawns change little
+ * between moves.
+ */
+public class PawnTable implements chessInterface {
+
+	private final static int[] ISOLATED = {-5, -15};
+	private final static int[] DOUBLED = {-10, -20};
+	// Bonus of a passed pawn by rank, counted from its own side
+	private final static int[][] PASSED = {{0, 5, 10, 15, 25, 40, 60, 0},
+										   {0, 10, 20, 35, 60, 100, 150, 0}};
+	private final static int MIDGAME = 0;
+	private final static int ENDGAME = 1;
+
+	private final int mask;
+	private final long[] keys;
+	private final int[] midgame;
+	private final int[] endgame;
+	private final long[] passed;
+	private long probes;
+	private long hits;
+
+	/*
+	 * Makes a table of the number of entries passed in, rounded down to a
+	 * power of two. A position with no pawns has key 0, which is what every
+	 * empty entry holds, with a score of 0 and no passed pawns: the right
+	 * answer, so empty entries need no marking.
+	 */
+	public PawnTable(int entries) {
+		int size = Integer.highestOneBit(Math.max(entries, 1));
+		mask = size - 1;
+		keys = new long[size];
+		midgame = new int[size];
+		endgame = new int[size];
+		passed = new long[size];
+	}
+
+	/*
+	 * Returns the entry holding the pawn structure of the board's position,
+	 * working it out first if the table does not have it.
+	 */
+	public int probe(Board b) {
+		long key = b.pawnKey;
+		int entry = (int) key & mask;
+		probes++;
+		if (keys[entry] == key) {
+			hits++;
+			return entry;
+		}
+		keys[entry] = key;
+		int midgameScore = 0;
+		int endgameScore = 0;
+		long passedPawns = 0;
+		for (int side = WHITE_SIDE; side <= BLACK_SIDE; side++) {
+			boolean white = side == WHITE_SIDE;
+			long own = b.bitboards[Board.pieceCode(PAWN, white)];
+			long enemy = b.bitboards[Board.pieceCode(PAWN, !white)];
+			int sign = white ? 1 : -1;
+			for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+				int sq = Bitboards.first(pawns);
+				boolean doubled = (own & Bitboards.FRONT_SPANS[side][sq]) != 0;
+				if ((own & Bitboards.ADJACENT_FILES[Bitboards.file(sq)]) == 0) {
+					midgameScore += sign * ISOLATED[MIDGAME];
+					endgameScore += sign * ISOLATED[ENDGAME];
+				}
+				if (doubled) {
+					midgameScore += sign * DOUBLED[MIDGAME];
+					endgameScore += sign * DOUBLED[ENDGAME];
+				}
+				// Of two pawns on a file only the front one can be passed
+				if (!doubled && (enemy & Bitboards.PASSED_PAWN_MASKS[side][sq]) == 0) {
+					int rank = relativeRank(sq, white);
+					midgameScore += sign * PASSED[MIDGAME][rank];
+					endgameScore += sign * PASSED[ENDGAME][rank];
+					passedPawns |= Bitboards.bit(sq);
+				}
+			}
+		}
+		midgame[entry] = midgameScore;
+		endgame[entry] = endgameScore;
+		passed[entry] = passedPawns;
+		return entry;
+	}
+
+	public int midgame(int entry) {
+		return midgame[entry];
+	}
+
+	public int endgame(int entry) {
+		return endgame[entry];
+	}
+
+	/*
+	 * Returns the passed pawns of both sides; the board's pawn bitboards
+	 * tell whose they are.
+	 */
+	public long passedPawns(int entry) {
+		return passed[entry];
+	}
+
+	/*
+	 * Returns the share of probes since the table was made that found their
+	 * pawn structure in it, between 0 and 1.
+	 */
+	public double hitRate() {
+		return probes == 0 ? 0 : (double) hits / probes;
+	}
+
+	/*
+	 * Returns the rank of the square counted from the side passed in: 0 is
+	 * its back rank, 7 the one it promotes on.
+	 */
+	public static int relativeRank(int square, boolean white) {
+		return white ? Bitboards.rank(square) : numRows - 1 - Bitboards.rank(square);
+	}
+}
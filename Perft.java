@@ -0,0 +1,179 @@
+/*
+ * This is the perft driver: it counts every sequence of legal moves (leaf
+ * nodes) down to a given depth from a position. The counts for the start
+ * position and for a handful of well known tricky positions (castling
+ * through attacked squares, en passant out of a pin, promotions, ...) are
+ * published, so comparing against them checks every move rule at once. The
+ * time it takes gives the nodes per second of the move generator and
+ * make/unmake, which is the throughput number to quote for any change to
+ * the board.
+ *
+ * Usage:
+ *   java Perft [depth]            runs the suite, every position to depth
+ *                                 (4 if not given)
+ *   java Perft divide depth [fen] prints the count under each root move,
+ *                                 from the start position or the position
+ *                                 given
+ */
+public class Perft implements chessInterface {
+
+	private final static int defaultDepth = 4;
+	private final static int maxDepth = 16;
+
+	// Name, position (null for the start position) and published counts
+	// from depth 1 on
+	private final static String[] NAMES = {"start", "kiwipete", "position 3",
+										   "position 4", "position 5", "position 6"};
+	private final static String[] POSITIONS = {
+		null,
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+		"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq -",
+		"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ -",
+		"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -"
+	};
+	private final static long[][] EXPECTED = {
+		{20, 400, 8902, 197281, 4865609, 119060324},
+		{48, 2039, 97862, 4085603, 193690690},
+		{14, 191, 2812, 43238, 674624, 11030083, 178633661},
+		{6, 264, 9467, 422333, 15833292},
+		{44, 1486, 62379, 2103487, 89941194},
+		{46, 2079, 89890, 3894594, 164075551}
+	};
+
+	private final static Board board = new Board();
+	// One move buffer per depth, so counting never allocates
+	private final static int[][] buffers = new int[maxDepth + 1][maxMoves];
+
+	public static void main(String[] args) {
+		boolean divide = args.length > 0 && args[0].equals("divide");
+		int first = divide ? 1 : 0;
+		int depth = args.length > first ? depth(args[first]) : defaultDepth;
+		if (depth == EMPTY) {
+			System.out.println("Usage: java Perft [depth] or java Perft divide depth [fen], depth from 1 to "
+				+ maxDepth);
+			return;
+		}
+		if (divide) {
+			try {
+				setUp(args.length > 2 ? joinFrom(args, 2) : null);
+			} catch (IllegalArgumentException e) {
+				System.out.println(e.getMessage());
+				return;
+			}
+			divide(depth);
+			return;
+		}
+		suite(depth);
+	}
+
+	/*
+	 * Returns the depth given on the command line, EMPTY if it is not a
+	 * number from 1 to maxDepth (the move buffers go no deeper).
+	 */
+	private static int depth(String arg) {
+		try {
+			int depth = Integer.parseInt(arg);
+			return depth >= 1 && depth <= maxDepth ? depth : EMPTY;
+		} catch (NumberFormatException e) {
+			return EMPTY;
+		}
+	}
+
+	/*
+	 * Counts the leaf nodes depth moves down from the board's position. The
+	 * last level is not made on the board: the number of legal moves is the
+	 * number of leaves under it.
+	 */
+	public static long perft(Board b, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		int[] moves = buffers[depth];
+		int count = b.generateLegalMoves(moves);
+		if (depth == 1) {
+			return count;
+		}
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			b.makeMove(moves[i]);
+			nodes += perft(b, depth - 1);
+			b.unmakeMove();
+		}
+		return nodes;
+	}
+
+	/*
+	 * Runs every position of the suite to the depth passed in (or the deepest
+	 * published count, whichever is smaller), checks the counts and prints
+	 * the nodes per second of each and of the whole run.
+	 */
+	private static void suite(int depth) {
+		long totalNodes = 0;
+		long totalTime = 0;
+		boolean allPassed = true;
+		for (int i = 0; i < NAMES.length; i++) {
+			int d = Math.min(depth, EXPECTED[i].length);
+			setUp(POSITIONS[i]);
+			long start = System.nanoTime();
+			long nodes = perft(board, d);
+			long time = System.nanoTime() - start;
+			boolean passed = nodes == EXPECTED[i][d - 1];
+			allPassed &= passed;
+			totalNodes += nodes;
+			totalTime += time;
+			System.out.println(String.format("%-12s depth %d: %12d nodes %s %8.3fs %12.0f nodes/sec",
+				NAMES[i], d, nodes, passed ? "OK  " : "FAIL", time / NANOS_PER_SEC, nodes / (time / NANOS_PER_SEC)));
+		}
+		System.out.println(String.format("TOTAL: %d nodes in %.3fs, %.0f nodes/sec", totalNodes,
+			totalTime / NANOS_PER_SEC, totalNodes / (totalTime / NANOS_PER_SEC)));
+		System.out.println(allPassed ? "ALL PASSED" : "SOME FAILED");
+	}
+
+	/*
+	 * Prints the leaf count under each legal move of the board's position,
+	 * then the total. Comparing this against another program's output shows
+	 * which move a wrong count comes from.
+	 */
+	private static void divide(int depth) {
+		int[] moves = new int[maxMoves];
+		int count = board.generateLegalMoves(moves);
+		long total = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			board.makeMove(moves[i]);
+			long nodes = perft(board, depth - 1);
+			board.unmakeMove();
+			total += nodes;
+			System.out.println(Move.toString(moves[i]) + ": " + nodes);
+		}
+		long time = System.nanoTime() - start;
+		System.out.println();
+		System.out.println("Moves: " + count);
+		System.out.println("Nodes: " + total);
+		System.out.println(String.format("Time: %.3fs, %.0f nodes/sec", time / NANOS_PER_SEC, total / (time / NANOS_PER_SEC)));
+	}
+
+	/*
+	 * Sets the board up from the FEN passed in, or in the start position
+	 * (whiteSetUp/blackSetUp) if it is null.
+	 */
+	private static void setUp(String fen) {
+		if (fen == null) {
+			board.clear();
+			Chess_Engine.whiteSetUp(board);
+			Chess_Engine.blackSetUp(board);
+		}
+		else {
+			board.setUpPosition(fen);
+		}
+	}
+
+	private static String joinFrom(String[] args, int start) {
+		StringBuilder s = new StringBuilder();
+		for (int i = start; i < args.length; i++) {
+			s.append(args[i]).append(' ');
+		}
+		return s.toString();
+	}
+}
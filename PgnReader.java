@@ -0,0 +1,477 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * This reads PGN files (Portable Game Notation, the usual format of game
+ * collections) of any size, one game at a time, telling a PgnVisitor about
+ * every tag pair, move, comment, annotation and variation of the game.
+ *
+ * The file is memory mapped a window at a time (64 MB), and the window
+ * slides along as the reading goes, so the memory used stays the same
+ * however big the file is. Tokens are never copied out of the window: what
+ * the visitor gets is a view of the bytes the token takes up, which is why
+ * a token has to fit in the window. Reading a game makes no objects at all.
+ * PGN is ASCII; each byte is taken as one char.
+ *
+ * A reader can also be given just a part of a file, starting at the first
+ * byte of a game (see nextGameStart): it reads the games starting before
+ * the end of that part, the last one to its end even if that is past the
+ * part. Parts split that way can be read by several threads at once.
+ *
+ * Usage: java PgnReader file.pgn   (counts the games and moves in the file
+ *                                  and prints how fast it read them)
+ */
+public class PgnReader implements Closeable {
+
+	private final static int defaultWindowSize = 1 << 26;
+	private final static int EOF = -1;
+	private final static int bytesPerMegabyte = 1 << 20;
+
+	private final FileChannel channel;
+	private final boolean ownsChannel;
+	private final long fileSize;
+	private final long end;
+	private final int windowSize;
+	private MappedByteBuffer window;
+	private long windowStart;
+	private int windowLength;
+	// File offset of the next byte to read, and of the token being read
+	private long position;
+	private long tokenStart;
+	private final Text text;
+	private final Text value;
+
+	/*
+	 * A view of bytes in the window as a CharSequence, one char per byte.
+	 */
+	public final static class Text implements CharSequence {
+
+		private MappedByteBuffer buffer;
+		private int offset;
+		private int length;
+
+		private void set(MappedByteBuffer b, int o, int l) {
+			buffer = b;
+			offset = o;
+			length = l;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of " + length);
+			}
+			return (char) (buffer.get(offset + index) & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+
+		/*
+		 * Returns true if the text is the string passed in, without making a
+		 * string out of the text.
+		 */
+		public boolean contentEquals(String s) {
+			if (s.length() != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if ((buffer.get(offset + i) & 0xFF) != s.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/*
+		 * Same as contentEquals above for any text a PgnVisitor is handed:
+		 * a Text is compared on its bytes, anything else char by char.
+		 */
+		public static boolean contentEquals(CharSequence text, String s) {
+			if (text instanceof Text) {
+				return ((Text) text).contentEquals(s);
+			}
+			return s.contentEquals(text);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder s = new StringBuilder(length);
+			for (int i = 0; i < length; i++) {
+				s.append((char) (buffer.get(offset + i) & 0xFF));
+			}
+			return s.toString();
+		}
+	}
+
+	/*
+	 * Opens the whole file passed in.
+	 */
+	public PgnReader(Path file) throws IOException {
+		this(FileChannel.open(file, StandardOpenOption.READ), true, 0, Long.MAX_VALUE, defaultWindowSize);
+	}
+
+	/*
+	 * Reads the games starting from start (the first byte of a game) up to
+	 * end of the channel passed in, which the reader leaves open.
+	 */
+	public PgnReader(FileChannel c, long start, long end) throws IOException {
+		this(c, false, start, end, defaultWindowSize);
+	}
+
+	private PgnReader(FileChannel c, boolean owns, long start, long end, int size) throws IOException {
+		channel = c;
+		ownsChannel = owns;
+		fileSize = c.size();
+		this.end = Math.min(end, fileSize);
+		windowSize = size;
+		position = start;
+		tokenStart = start;
+		windowStart = start;
+		windowLength = 0;
+		text = new Text();
+		value = new Text();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.out.println("Usage: java PgnReader file.pgn");
+			return;
+		}
+		long[] counts = new long[2];
+		PgnVisitor counter = new PgnVisitor() {
+			@Override
+			public void startGame(long offset) {
+				counts[0]++;
+			}
+
+			@Override
+			public void move(CharSequence san) {
+				counts[1]++;
+			}
+		};
+		long start = System.nanoTime();
+		long size;
+		try (PgnReader reader = new PgnReader(new File(args[0]).toPath())) {
+			size = reader.fileSize;
+			reader.readAll(counter);
+		}
+		double seconds = (System.nanoTime() - start) / chessInterface.NANOS_PER_SEC;
+		System.out.println(String.format("%d games, %d moves, %.1f MB in %.3fs: %.1f MB/s, %.0f games/s",
+			counts[0], counts[1], (double) size / bytesPerMegabyte, seconds,
+			size / seconds / bytesPerMegabyte, counts[0] / seconds));
+	}
+
+	/*
+	 * Reads every game left, telling the visitor passed in.
+	 */
+	public void readAll(PgnVisitor visitor) throws IOException {
+		while (nextGame(visitor)) {
+		}
+	}
+
+	/*
+	 * Reads the next game, telling the visitor passed in, and returns true;
+	 * returns false if there are no more games.
+	 */
+	public boolean nextGame(PgnVisitor visitor) throws IOException {
+		boolean inGame = false;
+		boolean inMoves = false;
+		int depth = 0;
+		while (true) {
+			tokenStart = position;
+			int c = skipSpace();
+			tokenStart = position;
+			if (c == EOF || (!inGame && position >= end)) {
+				if (inGame) {
+					text.set(window, 0, 0);
+					visitor.endGame(text);
+				}
+				return inGame;
+			}
+			// A tag pair after the moves is the next game; this one had no
+			// result
+			if (c == '[' && inMoves) {
+				text.set(window, 0, 0);
+				visitor.endGame(text);
+				return true;
+			}
+			if (!inGame) {
+				inGame = true;
+				visitor.startGame(position);
+			}
+			switch (c) {
+				case '[':
+					readTagPair(visitor);
+					break;
+				case '{':
+					readComment(visitor, '}');
+					inMoves = true;
+					break;
+				case ';':
+					readComment(visitor, '\n');
+					inMoves = true;
+					break;
+				case '%':
+					// An escaped line, for other programs
+					skipLine();
+					break;
+				case '(':
+					position++;
+					depth++;
+					visitor.startVariation();
+					inMoves = true;
+					break;
+				case ')':
+					position++;
+					if (depth > 0) {
+						depth--;
+						visitor.endVariation();
+					}
+					break;
+				case '$':
+					visitor.nag(readNag());
+					break;
+				case '*':
+					position++;
+					if (depth == 0) {
+						setText(text, tokenStart, position);
+						visitor.endGame(text);
+						return true;
+					}
+					break;
+				default:
+					inMoves = true;
+					if (isSymbolStart(c)) {
+						if (readSymbol(visitor, depth)) {
+							return true;
+						}
+					}
+					else {
+						position++;
+					}
+					break;
+			}
+		}
+	}
+
+	/*
+	 * Returns the offset of the first game starting at or after the offset
+	 * passed in (a line starting with "[" after a line that does not), or
+	 * the size of the file if there is none. Games found this way split a
+	 * file into parts that can be read on their own.
+	 */
+	public static long nextGameStart(FileChannel c, long from) throws IOException {
+		if (from == 0) {
+			return 0;
+		}
+		PgnReader reader = new PgnReader(c, false, from, Long.MAX_VALUE, defaultWindowSize);
+		return reader.findGameStart();
+	}
+
+	private long findGameStart() throws IOException {
+		// Start at the beginning of a line
+		skipLine();
+		boolean previousTag = true;
+		while (true) {
+			tokenStart = position;
+			int c = peek(position);
+			if (c == EOF) {
+				return fileSize;
+			}
+			boolean tag = c == '[';
+			if (tag && !previousTag) {
+				return position;
+			}
+			if (c != '\n' && c != '\r') {
+				previousTag = tag;
+			}
+			skipLine();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (ownsChannel) {
+			channel.close();
+		}
+	}
+
+	private void readTagPair(PgnVisitor visitor) throws IOException {
+		position++;
+		int c = skipSpace();
+		long nameStart = position;
+		while (c != EOF && c != '"' && c != ']' && !isSpace(c)) {
+			c = peek(++position);
+		}
+		long nameEnd = position;
+		c = skipSpace();
+		long valueStart = position;
+		long valueEnd = position;
+		if (c == '"') {
+			valueStart = ++position;
+			c = peek(position);
+			while (c != EOF && c != '"' && c != '\n') {
+				if (c == '\\') {
+					position++;
+				}
+				c = peek(++position);
+			}
+			valueEnd = position;
+		}
+		while (c != EOF && c != ']' && c != '\n') {
+			c = peek(++position);
+		}
+		if (c == ']') {
+			position++;
+		}
+		setText(text, nameStart, nameEnd);
+		setText(value, valueStart, valueEnd);
+		visitor.header(text, value);
+	}
+
+	private void readComment(PgnVisitor visitor, int close) throws IOException {
+		long start = ++position;
+		int c = peek(position);
+		while (c != EOF && c != close) {
+			c = peek(++position);
+		}
+		setText(text, start, position);
+		if (c != EOF) {
+			position++;
+		}
+		visitor.comment(text);
+	}
+
+	private int readNag() throws IOException {
+		int nag = 0;
+		int c = peek(++position);
+		while (c >= '0' && c <= '9') {
+			nag = nag * 10 + c - '0';
+			c = peek(++position);
+		}
+		return nag;
+	}
+
+	/*
+	 * Reads a move number, a move or a result. Returns true if it was the
+	 * result of the game, which ends it.
+	 */
+	private boolean readSymbol(PgnVisitor visitor, int depth) throws IOException {
+		int c = peek(position);
+		while (isSymbolChar(c)) {
+			c = peek(++position);
+		}
+		long symbolEnd = position;
+		if (c == '.') {
+			// A move number: "12." or "12..."
+			while (c == '.') {
+				c = peek(++position);
+			}
+			return false;
+		}
+		setText(text, tokenStart, symbolEnd);
+		int first = peek(tokenStart);
+		if (first >= '0' && first <= '9' && isResult(text)) {
+			if (depth == 0) {
+				visitor.endGame(text);
+				return true;
+			}
+			return false;
+		}
+		// Annotations written onto the move ("e4!?") are not part of it
+		long moveEnd = symbolEnd;
+		while (moveEnd > tokenStart && (peek(moveEnd - 1) == '!' || peek(moveEnd - 1) == '?')) {
+			moveEnd--;
+		}
+		if (first >= '0' && first <= '9' && first != '0') {
+			// A move number with its dot missing, or something else that is
+			// not a move
+			return false;
+		}
+		setText(text, tokenStart, moveEnd);
+		visitor.move(text);
+		return false;
+	}
+
+	private static boolean isResult(Text t) {
+		return t.contentEquals("1-0") || t.contentEquals("0-1") || t.contentEquals("1/2-1/2");
+	}
+
+	private static boolean isSymbolStart(int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+	}
+
+	private static boolean isSymbolChar(int c) {
+		return isSymbolStart(c) || c == '-' || c == '+' || c == '#' || c == '=' || c == '/' || c == '_'
+			|| c == ':' || c == '!' || c == '?';
+	}
+
+	private static boolean isSpace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+
+	/*
+	 * Skips whitespace and returns the first byte after it, EOF at the end
+	 * of the file.
+	 */
+	private int skipSpace() throws IOException {
+		int c = peek(position);
+		while (isSpace(c)) {
+			c = peek(++position);
+		}
+		return c;
+	}
+
+	private void skipLine() throws IOException {
+		int c = peek(position);
+		while (c != EOF && c != '\n') {
+			c = peek(++position);
+		}
+		if (c == '\n') {
+			position++;
+		}
+	}
+
+	/*
+	 * Points the text passed in at the bytes from start to end (file
+	 * offsets), which are in the window.
+	 */
+	private void setText(Text t, long start, long end) {
+		t.set(window, (int) (start - windowStart), (int) (end - start));
+	}
+
+	/*
+	 * Returns the byte at the file offset passed in, EOF past the end of the
+	 * file. When the offset is outside the window, the window moves to start
+	 * at the token being read, so the whole token stays in it.
+	 */
+	private int peek(long offset) throws IOException {
+		long i = offset - windowStart;
+		if (i >= 0 && i < windowLength) {
+			return window.get((int) i) & 0xFF;
+		}
+		if (offset >= fileSize) {
+			return EOF;
+		}
+		if (offset - tokenStart >= windowSize) {
+			throw new IOException("Token at byte " + tokenStart + " longer than " + windowSize + " bytes");
+		}
+		windowStart = tokenStart;
+		windowLength = (int) Math.min(windowSize, fileSize - windowStart);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+		return window.get((int) (offset - windowStart)) & 0xFF;
+	}
+}
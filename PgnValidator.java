@@ -0,0 +1,239 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * This replays every game of a PGN file through the rules (Board.playMove,
+ * which also finds checkmate and stalemate) and says for each game whether
+ * it is legal, has an illegal move (and at which ply), or ends in a way its
+ * result contradicts (a checkmate or stalemate on the board and another
+ * result given). Variations are not replayed.
+ *
+ * The work is spread over a fork/join pool: the file is cut in two at a
+ * game boundary (see PgnReader.nextGameStart), each half again, and so on
+ * until the parts are small, and each part is replayed on a board of its
+ * own. Idle threads steal parts from busy ones, so the threads stay busy
+ * even when parts take different times. The statuses of the parts are put
+ * back together in file order.
+ *
+ * Usage: java PgnValidator file.pgn [threads] [-all]
+ *   prints the games that are not legal (every game with -all), then the
+ *   counts and the games per second
+ */
+public class PgnValidator implements chessInterface {
+
+	public final static int LEGAL = 0;
+	public final static int ILLEGAL = 1;
+	public final static int RESULT_MISMATCH = 2;
+	private final static String[] STATUS_NAMES = {"legal", "illegal", "result mismatch"};
+	// Smallest part worth a task of its own, in bytes
+	private final static long minPartSize = 1 << 20;
+	// Parts per thread to aim for, so that stealing evens out the work
+	private final static int partsPerThread = 16;
+	private final static int initialGames = 1024;
+
+	/*
+	 * The statuses of the games of a part of the file, in file order: for
+	 * each game, where it starts, its status and the ply the status is about
+	 * (the illegal move, or the number of plies played).
+	 */
+	public final static class Report {
+
+		public int games;
+		public long[] offsets;
+		public int[] statuses;
+		public int[] plies;
+		public final int[] counts;
+
+		Report() {
+			offsets = new long[initialGames];
+			statuses = new int[initialGames];
+			plies = new int[initialGames];
+			counts = new int[STATUS_NAMES.length];
+		}
+
+		void add(long offset, int status, int ply) {
+			if (games == offsets.length) {
+				offsets = Arrays.copyOf(offsets, games * 2);
+				statuses = Arrays.copyOf(statuses, games * 2);
+				plies = Arrays.copyOf(plies, games * 2);
+			}
+			offsets[games] = offset;
+			statuses[games] = status;
+			plies[games] = ply;
+			games++;
+			counts[status]++;
+		}
+
+		/*
+		 * Puts the games of the report passed in (a later part of the file)
+		 * after these.
+		 */
+		void append(Report other) {
+			for (int i = 0; i < other.games; i++) {
+				add(other.offsets[i], other.statuses[i], other.plies[i]);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: java PgnValidator file.pgn [threads] [-all]");
+			return;
+		}
+		boolean all = Arrays.asList(args).contains("-all");
+		int threads = args.length > 1 && !args[1].equals("-all") ? Integer.parseInt(args[1])
+			: Runtime.getRuntime().availableProcessors();
+		long start = System.nanoTime();
+		Report report = validate(new File(args[0]), threads);
+		double seconds = (System.nanoTime() - start) / NANOS_PER_SEC;
+		for (int i = 0; i < report.games; i++) {
+			if (all || report.statuses[i] != LEGAL) {
+				String at = report.statuses[i] == ILLEGAL ? " at ply " + report.plies[i] : "";
+				System.out.println("game " + (i + 1) + " (byte " + report.offsets[i] + "): "
+					+ STATUS_NAMES[report.statuses[i]] + at);
+			}
+		}
+		System.out.println(String.format("%d games: %d legal, %d illegal, %d result mismatch; %.3fs, %.0f games/s"
+			+ " on %d threads", report.games, report.counts[LEGAL], report.counts[ILLEGAL],
+			report.counts[RESULT_MISMATCH], seconds, report.games / seconds, threads));
+	}
+
+	/*
+	 * Replays every game of the file passed in on the number of threads
+	 * passed in and returns their statuses.
+	 */
+	public static Report validate(File file, int threads) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long partSize = Math.max(minPartSize, size / ((long) threads * partsPerThread));
+			return pool.invoke(new Part(channel, 0, size, partSize));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * The games starting from start (a game boundary) up to end: replayed
+	 * here if the part is small enough, otherwise cut in two.
+	 */
+	private final static class Part extends RecursiveTask<Report> {
+
+		private final static long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+		private final long partSize;
+
+		Part(FileChannel c, long s, long e, long p) {
+			channel = c;
+			start = s;
+			end = e;
+			partSize = p;
+		}
+
+		@Override
+		protected Report compute() {
+			try {
+				if (end - start > partSize) {
+					long middle = PgnReader.nextGameStart(channel, start + (end - start) / 2);
+					if (middle > start && middle < end) {
+						Part second = new Part(channel, middle, end, partSize);
+						second.fork();
+						Report report = new Part(channel, start, middle, partSize).compute();
+						report.append(second.join());
+						return report;
+					}
+				}
+				Replayer replayer = new Replayer();
+				new PgnReader(channel, start, end).readAll(replayer);
+				return replayer.report;
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not read games from byte " + start, e);
+			}
+		}
+	}
+
+	/*
+	 * Replays the games the reader finds on a board of its own.
+	 */
+	private final static class Replayer implements PgnVisitor {
+
+		private final Report report = new Report();
+		private final Board board = new Board();
+		private long offset;
+		private int ply;
+		private int variations;
+		private boolean illegal;
+
+		@Override
+		public void startGame(long o) {
+			offset = o;
+			ply = 0;
+			variations = 0;
+			illegal = false;
+			board.clear();
+			Chess_Engine.whiteSetUp(board);
+			Chess_Engine.blackSetUp(board);
+		}
+
+		@Override
+		public void header(CharSequence name, CharSequence value) {
+			// A game can start from another position
+			if (PgnReader.Text.contentEquals(name, "FEN")) {
+				try {
+					board.setUpPosition(value.toString());
+				} catch (IllegalArgumentException e) {
+					illegal = true;
+				}
+			}
+		}
+
+		@Override
+		public void move(CharSequence san) {
+			if (variations > 0 || illegal) {
+				return;
+			}
+			// No move can follow the end of the game
+			int move = board.isCheckmate || board.isStalemate ? Move.NONE : SanParser.parse(board, san);
+			if (move == Move.NONE) {
+				illegal = true;
+				return;
+			}
+			board.playMove(move);
+			ply++;
+		}
+
+		@Override
+		public void startVariation() {
+			variations++;
+		}
+
+		@Override
+		public void endVariation() {
+			variations--;
+		}
+
+		@Override
+		public void endGame(CharSequence result) {
+			if (illegal) {
+				report.add(offset, ILLEGAL, ply + 1);
+				return;
+			}
+			boolean matches = true;
+			if (board.isCheckmate) {
+				matches = result.length() == 0 || PgnReader.Text.contentEquals(result, board.masterWhiteTurn ? "0-1" : "1-0");
+			}
+			else if (board.isStalemate) {
+				matches = result.length() == 0 || PgnReader.Text.contentEquals(result, "1/2-1/2");
+			}
+			report.add(offset, matches ? LEGAL : RESULT_MISMATCH, ply);
+		}
+	}
+}
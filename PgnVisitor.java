@@ -0,0 +1,58 @@
+/*
+ * Told about what a PgnReader finds in a game, in the order it is found.
+ * Every method does nothing unless overridden, so a visitor only implements
+ * what it needs.
+ *
+ * The text passed in is a view of the reader's buffer, not a copy: it is
+ * only good until the method returns. A visitor keeping it must copy it
+ * (toString).
+ */
+public interface PgnVisitor {
+
+	/*
+	 * A game starts at the byte offset passed in.
+	 */
+	default void startGame(long offset) {
+	}
+
+	/*
+	 * A tag pair ([White "Morphy, Paul"]). The value is as written, escapes
+	 * (\" and \\) included.
+	 */
+	default void header(CharSequence name, CharSequence value) {
+	}
+
+	/*
+	 * A move in standard algebraic notation ("Nf3", "exd8=Q+", "O-O"), with
+	 * any "!" and "?" after it taken off. Moves inside a variation come
+	 * between startVariation and endVariation.
+	 */
+	default void move(CharSequence san) {
+	}
+
+	/*
+	 * A comment, without its braces or the semicolon starting it.
+	 */
+	default void comment(CharSequence text) {
+	}
+
+	/*
+	 * A numeric annotation glyph ($1 and so on).
+	 */
+	default void nag(int nag) {
+	}
+
+	default void startVariation() {
+	}
+
+	default void endVariation() {
+	}
+
+	/*
+	 * The game ends with the result passed in ("1-0", "0-1", "1/2-1/2" or
+	 * "*"), empty if the game had no result before the next game or the end
+	 * of the file.
+	 */
+	default void endGame(CharSequence result) {
+	}
+}
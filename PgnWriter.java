@@ -0,0 +1,349 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+
+/*
+ * This writes games to an OutputStream in PGN, the export format PgnReader
+ * reads: the seven tag roster (Event, Site, Date, Round, White, Black,
+ * Result, "?" for any not given) and any other tags, SetUp and FEN when the
+ * game did not start from the usual position, then the moves in SAN with
+ * their numbers, in lines of less than 80 chars, and the result.
+ *
+ * The moves come from the game board's move log. They are written in SAN
+ * by replaying them on a board of the writer's own, on its core alone (see
+ * Board.replayMove), so writing a game leaves the game alone and makes
+ * next to no objects. Everything goes through a buffer of the writer's own
+ * and reaches the stream in large blocks. Each char is written as one byte,
+ * as PgnReader reads them; chars that do not fit in a byte become '?'.
+ *
+ * Usage: java PgnWriter in.pgn out.pgn   (replays the games of in.pgn and
+ *                                        writes them to out.pgn, printing
+ *                                        how fast they were written)
+ */
+public class PgnWriter implements Closeable, chessInterface {
+
+	private final static int bufferSize = 1 << 16;
+	// Longest a movetext line may be, as the PGN export format asks
+	private final static int maxLineLength = 79;
+	private final static String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+	private final static String RESULT = "Result";
+	private final static String SET_UP = "SetUp";
+	private final static String FEN = "FEN";
+	private final static String UNKNOWN = "?";
+	// Longest a move number can be written, with its dots
+	private final static int maxNumberLength = 16;
+	private final static int bytesPerMegabyte = 1 << 20;
+	// The usual start position, copied onto the writer's board for each game
+	private final static Board standardStart = standardStart();
+
+	private final OutputStream out;
+	private final byte[] buffer;
+	private int length;
+	private final Board replay;
+	// A move number or a move, before it goes into the buffer
+	private final byte[] token;
+	private int lineLength;
+
+	public PgnWriter(OutputStream o) {
+		out = o;
+		buffer = new byte[bufferSize];
+		replay = new Board();
+		token = new byte[Math.max(SanWriter.maxLength, maxNumberLength)];
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("Usage: java PgnWriter in.pgn out.pgn");
+			return;
+		}
+		Board board = new Board();
+		ArrayList<String> tags = new ArrayList<>();
+		long[] counts = new long[2];
+		long[] writing = new long[1];
+		try (PgnReader reader = new PgnReader(new File(args[0]).toPath());
+			PgnWriter writer = new PgnWriter(new FileOutputStream(args[1]))) {
+			reader.readAll(new PgnVisitor() {
+				private boolean illegal;
+				private int variations;
+
+				@Override
+				public void startGame(long offset) {
+					board.clear();
+					Chess_Engine.whiteSetUp(board);
+					Chess_Engine.blackSetUp(board);
+					tags.clear();
+					illegal = false;
+					variations = 0;
+				}
+
+				@Override
+				public void header(CharSequence name, CharSequence value) {
+					String v = value.toString().replace("\\\"", "\"").replace("\\\\", "\\");
+					if (PgnReader.Text.contentEquals(name, FEN)) {
+						try {
+							board.setUpPosition(v);
+						} catch (IllegalArgumentException e) {
+							illegal = true;
+						}
+					}
+					else if (!PgnReader.Text.contentEquals(name, SET_UP)) {
+						tags.add(name.toString());
+						tags.add(v);
+					}
+				}
+
+				@Override
+				public void move(CharSequence san) {
+					if (variations > 0 || illegal) {
+						return;
+					}
+					int move = SanParser.parse(board, san);
+					if (move == Move.NONE) {
+						illegal = true;
+						return;
+					}
+					board.playMove(move);
+				}
+
+				@Override
+				public void startVariation() {
+					variations++;
+				}
+
+				@Override
+				public void endVariation() {
+					variations--;
+				}
+
+				@Override
+				public void endGame(CharSequence result) {
+					if (illegal) {
+						counts[1]++;
+						return;
+					}
+					long start = System.nanoTime();
+					try {
+						writer.writeGame(board, tags.toArray(new String[tags.size()]));
+					} catch (IOException e) {
+						throw new IllegalStateException("Could not write " + args[1], e);
+					}
+					writing[0] += System.nanoTime() - start;
+					counts[0]++;
+				}
+			});
+			long start = System.nanoTime();
+			writer.flush();
+			writing[0] += System.nanoTime() - start;
+		}
+		double seconds = writing[0] / NANOS_PER_SEC;
+		long size = new File(args[1]).length();
+		System.out.println(String.format("%d games written (%d with an illegal move skipped), %.1f MB in %.3fs:"
+			+ " %.1f MB/s, %.0f games/s", counts[0], counts[1], (double) size / bytesPerMegabyte, seconds,
+			size / seconds / bytesPerMegabyte, counts[0] / seconds));
+	}
+
+	/*
+	 * Writes the game played on the board passed in. The tags are given as
+	 * name and value pairs ("White", "Morphy, Paul", ...); the result is the
+	 * Result tag if one is given, otherwise what the board says (a checkmate
+	 * or stalemate, "*" if the game is not over).
+	 */
+	public void writeGame(Board game, String... tags) throws IOException {
+		if (tags.length % 2 != 0) {
+			throw new IllegalArgumentException("Tags come in name and value pairs");
+		}
+		String result = tag(tags, RESULT);
+		if (result == null) {
+			result = result(game);
+		}
+		for (String name : SEVEN_TAG_ROSTER) {
+			String value = name.equals(RESULT) ? result : tag(tags, name);
+			writeTag(name, value == null ? UNKNOWN : value);
+		}
+		for (int i = 0; i < tags.length; i += 2) {
+			if (!isRosterTag(tags[i]) && !tags[i].equals(SET_UP) && !tags[i].equals(FEN)) {
+				writeTag(tags[i], tags[i + 1]);
+			}
+		}
+		if (game.startPosition != null && !game.startPosition.equals(START_FEN)) {
+			writeTag(SET_UP, "1");
+			writeTag(FEN, game.startPosition);
+			replay.setUpPosition(game.startPosition);
+		}
+		else {
+			replay.copyPosition(standardStart);
+		}
+		writeByte('\n');
+
+		lineLength = 0;
+		for (int ply = 0; ply < game.plyCount(); ply++) {
+			int move = game.movePlayed(ply);
+			if (replay.internalWhiteTurn || ply == 0) {
+				int n = writeNumber(replay.fullmoveNumber, token, 0);
+				token[n++] = '.';
+				if (!replay.internalWhiteTurn) {
+					token[n++] = '.';
+					token[n++] = '.';
+				}
+				writeToken(token, n);
+			}
+			writeToken(token, SanWriter.write(replay, move, token, 0));
+			replay.replayMove(move);
+		}
+		// A Result tag given by the caller may be longer than any move
+		byte[] resultToken = result.length() <= token.length ? token : new byte[result.length()];
+		for (int i = 0; i < result.length(); i++) {
+			char c = result.charAt(i);
+			resultToken[i] = (byte) (c <= 0xFF ? c : '?');
+		}
+		writeToken(resultToken, result.length());
+		writeByte('\n');
+		writeByte('\n');
+	}
+
+	/*
+	 * Sends everything written so far to the stream.
+	 */
+	public void flush() throws IOException {
+		out.write(buffer, 0, length);
+		length = 0;
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		out.close();
+	}
+
+	/*
+	 * Returns the result of the game on the board passed in, as far as the
+	 * board can tell.
+	 */
+	private static String result(Board game) {
+		if (game.isCheckmate) {
+			return game.masterWhiteTurn ? "0-1" : "1-0";
+		}
+		return game.isStalemate ? "1/2-1/2" : "*";
+	}
+
+	/*
+	 * Returns the value of the tag with the name passed in, null if it is
+	 * not given.
+	 */
+	private static String tag(String[] tags, String name) {
+		for (int i = 0; i < tags.length; i += 2) {
+			if (tags[i].equals(name)) {
+				return tags[i + 1];
+			}
+		}
+		return null;
+	}
+
+	private static boolean isRosterTag(String name) {
+		for (String roster : SEVEN_TAG_ROSTER) {
+			if (roster.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Writes a tag pair on a line of its own, with any quote or backslash in
+	 * the value escaped.
+	 */
+	private void writeTag(String name, String value) throws IOException {
+		writeByte('[');
+		writeText(name);
+		writeByte(' ');
+		writeByte('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				writeByte('\\');
+			}
+			writeChar(c);
+		}
+		writeByte('"');
+		writeByte(']');
+		writeByte('\n');
+	}
+
+	/*
+	 * Writes the number passed in into out from offset on and returns the
+	 * offset after it.
+	 */
+	private static int writeNumber(int number, byte[] out, int offset) {
+		int digits = 1;
+		for (int n = number / 10; n > 0; n /= 10) {
+			digits++;
+		}
+		for (int i = offset + digits - 1, n = number; i >= offset; i--, n /= 10) {
+			out[i] = (byte) ('0' + n % 10);
+		}
+		return offset + digits;
+	}
+
+	/*
+	 * Writes a token of the movetext, starting a new line first if it would
+	 * make the line too long.
+	 */
+	private void writeToken(byte[] bytes, int count) throws IOException {
+		if (lineLength > 0 && lineLength + 1 + count > maxLineLength) {
+			writeByte('\n');
+			lineLength = 0;
+		}
+		else if (lineLength > 0) {
+			writeByte(' ');
+			lineLength++;
+		}
+		if (length + count > buffer.length) {
+			drain();
+		}
+		if (count > buffer.length) {
+			out.write(bytes, 0, count);
+		}
+		else {
+			System.arraycopy(bytes, 0, buffer, length, count);
+			length += count;
+		}
+		lineLength += count;
+	}
+
+	private void writeText(String s) throws IOException {
+		for (int i = 0; i < s.length(); i++) {
+			writeChar(s.charAt(i));
+		}
+	}
+
+	private void writeChar(char c) throws IOException {
+		writeByte(c <= 0xFF ? c : '?');
+	}
+
+	private void writeByte(int b) throws IOException {
+		if (length == buffer.length) {
+			drain();
+		}
+		buffer[length++] = (byte) b;
+	}
+
+	/*
+	 * Hands the buffer to the stream to make room, without flushing the
+	 * stream.
+	 */
+	private void drain() throws IOException {
+		out.write(buffer, 0, length);
+		length = 0;
+	}
+
+	private static Board standardStart() {
+		Board b = new Board();
+		Chess_Engine.whiteSetUp(b);
+		Chess_Engine.blackSetUp(b);
+		return b;
+	}
+}
@@ -1,52 +1,87 @@
-import java.util.ArrayList;
-import java.util.Observable;
-import java.util.Observer;
 import java.util.Random;
 
-public class Player implements Observer {
-	
+/*
+ * A computer player. It listens to a game session: whenever a move leaves it
+ * to move, it picks a move and hands it to the session. Made without search
+ * limits it plays one of its legal moves at random (randomized play);
+ * otherwise it plays the move the engine finds within those limits, and on
+ * a timed session within the time its clock allows (see TimeManager). It
+ * stops after moveLimit moves of its own or when the game is over.
+ */
+public class Player implements GameSession.Listener, chessInterface {
+
 	public String name;
-	static int count;
+	public final boolean isWhite;
+	// Moves this player has made
+	int count;
+	private final int moveLimit;
+	// Limits of the engine's search, null for random moves
+	private final SearchLimits search;
+	// Transposition table, move orderers and pawn tables of the engine's
+	// search threads, kept from one move of this player's game to the next
+	private final TranspositionTable table;
+	private final MoveOrderer[] orderers;
+	private final PawnTable[] pawnTables;
+	private final Random r;
+	private final int[] moveBuffer;
+
+	public Player (String name, boolean white, int limit) {
+		this(name, white, limit, null);
+	}
 	
-	public Player (String name) {
+	public Player (String name, boolean white, int limit, SearchLimits search) {
 		this.name = name;
+		this.search = search;
+		isWhite = white;
+		moveLimit = limit;
 		count = 0;
+		r = new Random();
+		moveBuffer = new int[maxMoves];
+		if (search == null) {
+			table = null;
+			orderers = null;
+			pawnTables = null;
+		}
+		else {
+			// A table given with the limits is the caller's to share
+			table = search.table != null ? search.table : Engine.newTable(search);
+			orderers = new MoveOrderer[Math.max(search.threads, 1)];
+			pawnTables = new PawnTable[orderers.length];
+			for (int i = 0; i < orderers.length; i++) {
+				orderers[i] = new MoveOrderer(Engine.maxSearchDepth);
+				pawnTables[i] = Engine.newPawnTable();
+			}
+		}
 	}
 
 	@Override
-	public void update(Observable o, Object arg) {
-		if (count < 20) {
-			// The board has been updated. Next player's turn
-			// The arg will tell us whose turn it is
-			arg = (String) arg;
-			System.out.println(arg);
-			ArrayList<Piece> pieces = arg.equals("white") ? Chess_Engine.getWhite() : Chess_Engine.getBlack();
-			Random r = new Random();
-			Piece piece = null;
-			String move = "";
-			//System.out.println("Inside player's update (making random move)");
-			do {
-				// Get random piece
-				piece = pieces.get(r.nextInt(pieces.size() - 1));
-				// Get random square
-				char col = (char) (r.nextInt(8) + 'a');
-				int row = r.nextInt(7) + 1;
-				move = col + "" + row;
-				System.out.println(piece);
-//				System.out.println(piece);
-//				System.out.println(move);
-//				assert false;
-			}
-			//while (false);
-			while (!piece.makeMove(move));
+	public void moveMade(GameSession session, int move) {
+		play(session);
+	}
+
+	/*
+	 * Makes a move if it is this player's turn. Only call from a task
+	 * of the session (listeners are).
+	 */
+	public void play(GameSession session) {
+		Board board = session.board;
+		if (session.isOver() || board.masterWhiteTurn != isWhite || count >= moveLimit) {
+			return;
 		}
-		else {
-			System.exit(0);
+		board.internalWhiteTurn = board.masterWhiteTurn;
+		count++;
+		if (search != null) {
+			// The limits may be shared with other players, so the deadlines of
+			// this move go on a copy of its own
+			SearchLimits limits = new SearchLimits(search);
+			limits.table = table;
+			limits.orderers = orderers;
+			limits.pawnTables = pawnTables;
+			limits.time = session.clock.isTimed() ? new TimeManager(session.clock, isWhite) : null;
+			session.submitMove(Engine.search(board, limits).bestMove);
+			return;
 		}
-		
-		
-		
-		
+		int legalMoves = board.generateLegalMoves(moveBuffer);
+		session.submitMove(moveBuffer[r.nextInt(legalMoves)]);
 	}
-
 }
@@ -11,12 +11,15 @@ public class RandomizedPlay {
 		// a place to move it to. If the move is legal, make it, otherwise, pick
 		// another piece and square to move to.
 		
-		while (!(chessInterface.board.isCheckmate && chessInterface.board.isStalemate)) {
+		Board board = new Board();
+		ArrayList<Piece> white = Chess_Engine.whiteSetUp(board);
+		ArrayList<Piece> black = Chess_Engine.blackSetUp(board);
+		while (!(board.isCheckmate && board.isStalemate)) {
 			// Keep picking pieces from the correct team
 			Piece piece;
 			String move;
 			do {
-				ArrayList<Piece> pieces = chessInterface.board.masterWhiteTurn ? Chess_Engine.getWhite() : Chess_Engine.getBlack();
+				ArrayList<Piece> pieces = board.masterWhiteTurn ? white : black;
 				// Get random piece
 				piece = pieces.get(r.nextInt(pieces.size() - 1));
 				// Get random square
@@ -0,0 +1,223 @@
+/*
+ * This turns a move in standard algebraic notation ("Nf3", "exd8=Q+",
+ * "R1a3", "O-O") into the legal move it names, packed as in Move, for the
+ * player moving on a board (internalWhiteTurn). It is what every move of a
+ * PGN import goes through, so it makes no objects: the text is read once,
+ * left to right, and never copied.
+ *
+ * Only the piece, the target square, any file or rank given to tell pieces
+ * apart, and the promotion are read from the text. The square the piece
+ * comes from is found from the attack sets: the pieces of that type the
+ * target square can be reached from (for pawns, the square behind it or the
+ * two squares it is attacked from), narrowed by the file and rank given.
+ * Each candidate left is then tried on the occupancy bits (Board.isLegal),
+ * and the move is only returned if exactly one is legal.
+ *
+ * Besides strict SAN, the parser takes:
+ *   - castling written with zeros ("0-0", "0-0-0"), as the text interface
+ *     and some PGN files do
+ *   - "e8Q" for "e8=Q", and a pawn reaching the last row with no piece
+ *     given is promoted to a queen
+ *   - any number of "+", "#", "!" and "?" at the end ("++" for mate)
+ *   - "x" anywhere before the target square; it is not checked against the
+ *     board
+ */
+public class SanParser implements chessInterface {
+
+	/*
+	 * Returns the legal move the SAN move passed in names, Move.NONE if it
+	 * is not well formed, names no legal move or more than one.
+	 */
+	public static int parse(Board board, CharSequence san) {
+		return parse(board, san, 0, san.length());
+	}
+
+	/*
+	 * Same as parse above for the characters of san from start up to end.
+	 */
+	public static int parse(Board board, CharSequence san, int start, int end) {
+		if (end - start < sizeOfLoc) {
+			return Move.NONE;
+		}
+		char first = san.charAt(start);
+		if (first == 'O' || first == '0') {
+			return parseCastling(board, san, start, end);
+		}
+		int i = start;
+		int type = pieceType(first);
+		if (type == EMPTY) {
+			type = PAWN;
+		}
+		else {
+			i++;
+		}
+		// Files and ranks are read as they come: a file or rank already read
+		// when another file comes tells the pieces apart, and the last file
+		// and rank are the target square's.
+		int file = -1;
+		int rank = -1;
+		int fromFile = -1;
+		int fromRank = -1;
+		boolean capture = false;
+		// Where the target square ends in the text
+		int squareEnd = -1;
+		for (; i < end; i++) {
+			char c = san.charAt(i);
+			if (c >= 'a' && c <= 'h') {
+				if (file >= 0) {
+					fromFile = file;
+				}
+				if (rank >= 0) {
+					fromRank = rank;
+					rank = -1;
+				}
+				file = c - 'a';
+			}
+			else if (c >= '1' && c <= '8') {
+				if (rank >= 0) {
+					return Move.NONE;
+				}
+				rank = c - '1';
+				squareEnd = i + 1;
+			}
+			else if (c == removePiece) {
+				capture = true;
+			}
+			else {
+				break;
+			}
+		}
+		// The target square has to be a file and a rank, in that order, last
+		if (file < 0 || rank < 0 || squareEnd != i || san.charAt(i - 2) < 'a' || san.charAt(i - 2) > 'h') {
+			return Move.NONE;
+		}
+		int promotion = 0;
+		boolean equals = i < end && san.charAt(i) == '=';
+		if (equals) {
+			i++;
+		}
+		if (i < end && san.charAt(i) >= 'A' && san.charAt(i) <= 'Z') {
+			promotion = pieceType(san.charAt(i));
+			if (promotion == EMPTY || promotion == KING) {
+				return Move.NONE;
+			}
+			i++;
+		}
+		else if (equals) {
+			return Move.NONE;
+		}
+		for (; i < end; i++) {
+			char c = san.charAt(i);
+			if (c != '+' && c != '#' && c != '!' && c != '?') {
+				return Move.NONE;
+			}
+		}
+
+		int to = Bitboards.square(file, rank);
+		boolean white = board.internalWhiteTurn;
+		long own = board.occupancy[white ? WHITE_SIDE : BLACK_SIDE];
+		long enemy = board.occupancy[white ? BLACK_SIDE : WHITE_SIDE];
+		long target = Bitboards.bit(to);
+		if ((own & target) != 0) {
+			return Move.NONE;
+		}
+		int flags = (enemy & target) != 0 ? Move.CAPTURE : Move.NONE;
+		long candidates;
+		if (type == PAWN) {
+			int lastRow = white ? numRows - 1 : 0;
+			if (rank == lastRow) {
+				promotion = promotion == 0 ? QUEEN : promotion;
+			}
+			else if (promotion != 0) {
+				return Move.NONE;
+			}
+			long pawns = board.bitboards[Board.pieceCode(PAWN, white)];
+			int forward = white ? numColumns : -numColumns;
+			if (capture || fromFile >= 0) {
+				if (to == board.enPassantSquare) {
+					flags = Move.CAPTURE | Move.EN_PASSANT;
+				}
+				else if (flags == Move.NONE) {
+					return Move.NONE;
+				}
+				candidates = Bitboards.PAWN_ATTACKS[white ? BLACK_SIDE : WHITE_SIDE][to] & pawns;
+			}
+			else {
+				// A push: the pawn is right behind the target square, or two
+				// squares behind it on its starting row with nothing between
+				if (flags != Move.NONE) {
+					return Move.NONE;
+				}
+				int behind = to - forward;
+				candidates = pawns & Bitboards.bit(behind);
+				int startRow = white ? 1 : numRows - 2;
+				if (candidates == 0 && rank == startRow + 2 * (white ? 1 : -1)
+					&& (board.occupied & Bitboards.bit(behind)) == 0) {
+					candidates = pawns & Bitboards.bit(behind - forward);
+					flags = Move.DOUBLE_PUSH;
+				}
+			}
+		}
+		else {
+			if (promotion != 0) {
+				return Move.NONE;
+			}
+			candidates = Board.attacks(type, to, board.occupied) & board.bitboards[Board.pieceCode(type, white)];
+		}
+
+		int found = Move.NONE;
+		while (candidates != 0) {
+			int from = Bitboards.first(candidates);
+			candidates &= candidates - 1;
+			if ((fromFile >= 0 && Bitboards.file(from) != fromFile) || (fromRank >= 0 && Bitboards.rank(from) != fromRank)) {
+				continue;
+			}
+			int move = Move.make(from, to, promotion, flags);
+			if (board.isLegal(move)) {
+				if (found != Move.NONE) {
+					// More than one piece can make the move
+					return Move.NONE;
+				}
+				found = move;
+			}
+		}
+		return found;
+	}
+
+	/*
+	 * Reads "O-O" or "O-O-O" (or the same with zeros), followed by nothing
+	 * but check marks and annotations.
+	 */
+	private static int parseCastling(Board board, CharSequence san, int start, int end) {
+		char o = san.charAt(start);
+		int i = start + 1;
+		int parts = 1;
+		while (i + 1 < end && san.charAt(i) == '-' && san.charAt(i + 1) == o) {
+			parts++;
+			i += 2;
+		}
+		if (parts < 2 || parts > 3) {
+			return Move.NONE;
+		}
+		for (; i < end; i++) {
+			char c = san.charAt(i);
+			if (c != '+' && c != '#' && c != '!' && c != '?') {
+				return Move.NONE;
+			}
+		}
+		return board.castlingMove(parts == 2);
+	}
+
+	/*
+	 * Returns the piece type of the SAN letter passed in (KNIGHT for 'N' and
+	 * so on), EMPTY if it names no piece.
+	 */
+	private static int pieceType(char letter) {
+		for (int type = KNIGHT; type <= KING; type++) {
+			if (pieceNames[type] == letter) {
+				return type;
+			}
+		}
+		return EMPTY;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * This writes a legal move of the player moving on a board (internalWhiteTurn)
+ * in standard algebraic notation: "Nf3", "exd8=Q+", "Rad1", "O-O-O#". It is
+ * the other half of SanParser, and like it makes no objects unless a String
+ * is asked for: the text goes straight into a byte array (one byte per
+ * char, as PGN is ASCII).
+ *
+ * A piece's square is only added when another piece of the same type could
+ * legally make the same move: the file if it tells them apart, otherwise the
+ * rank, otherwise both. The pieces that could are found the way SanParser
+ * finds them, from the attack sets of the target square and Board.isLegal.
+ * The check and mate marks come from making the move on the core and taking
+ * it back, so the board is left as it was.
+ */
+public class SanWriter implements chessInterface {
+
+	// Longest a move can be written: "Qh4xe1+", "exd8=Q#"
+	public final static int maxLength = 7;
+	private final static byte[] KINGSIDE = {'O', '-', 'O'};
+	private final static byte[] QUEENSIDE = {'O', '-', 'O', '-', 'O'};
+
+	/*
+	 * Writes the move passed in into out from offset on and returns the
+	 * offset after it. out needs room for maxLength bytes.
+	 */
+	public static int write(Board board, int move, byte[] out, int offset) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int flags = Move.flags(move);
+		int pos = offset;
+		if ((flags & Move.CASTLING) != 0) {
+			byte[] castling = to > from ? KINGSIDE : QUEENSIDE;
+			System.arraycopy(castling, 0, out, pos, castling.length);
+			pos += castling.length;
+		}
+		else {
+			int type = board.mailbox[from] % numPieceTypes;
+			boolean capture = (flags & Move.CAPTURE) != 0;
+			if (type == PAWN) {
+				if (capture) {
+					out[pos++] = (byte) (firstLetter + Bitboards.file(from));
+				}
+			}
+			else {
+				out[pos++] = (byte) pieceNames[type];
+				pos = writeOrigin(board, type, from, to, flags, out, pos);
+			}
+			if (capture) {
+				out[pos++] = removePiece;
+			}
+			out[pos++] = (byte) (firstLetter + Bitboards.file(to));
+			out[pos++] = (byte) ('1' + Bitboards.rank(to));
+			if (Move.promotion(move) != 0) {
+				out[pos++] = '=';
+				out[pos++] = (byte) pieceNames[Move.promotion(move)];
+			}
+		}
+		board.makeMove(move);
+		if (board.checkers(board.internalWhiteTurn) != 0) {
+			out[pos++] = (byte) (board.isCheckMate() ? '#' : '+');
+		}
+		board.unmakeMove();
+		return pos;
+	}
+
+	/*
+	 * Returns the move passed in in SAN. Meant for showing a move; writing
+	 * many moves should go through write above.
+	 */
+	public static String toSan(Board board, int move) {
+		byte[] out = new byte[maxLength];
+		int length = write(board, move, out, 0);
+		StringBuilder s = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			s.append((char) out[i]);
+		}
+		return s.toString();
+	}
+
+	/*
+	 * Writes as much of the square a piece moves from as it takes to tell it
+	 * from the other pieces of its type that could legally move to the same
+	 * square, nothing if there are none.
+	 */
+	private static int writeOrigin(Board board, int type, int from, int to, int flags, byte[] out, int pos) {
+		boolean white = board.mailbox[from] < numPieceTypes;
+		long others = Board.attacks(type, to, board.occupied) & board.bitboards[Board.pieceCode(type, white)]
+			& ~Bitboards.bit(from);
+		boolean ambiguous = false;
+		boolean sameFile = false;
+		boolean sameRank = false;
+		while (others != 0) {
+			int other = Bitboards.first(others);
+			others &= others - 1;
+			if (board.isLegal(Move.make(other, to, 0, flags))) {
+				ambiguous = true;
+				sameFile |= Bitboards.file(other) == Bitboards.file(from);
+				sameRank |= Bitboards.rank(other) == Bitboards.rank(from);
+			}
+		}
+		if (ambiguous && (!sameFile || sameRank)) {
+			out[pos++] = (byte) (firstLetter + Bitboards.file(from));
+		}
+		if (sameFile) {
+			out[pos++] = (byte) ('1' + Bitboards.rank(from));
+		}
+		return pos;
+	}
+}
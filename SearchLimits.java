@@ -0,0 +1,73 @@
+import java.io.PrintStream;
+
+/*
+ * The limits a search (see Engine) runs under, and the pruning it may do. A
+ * limit of 0 means there is none; with no limit set at all the search goes
+ * on until Engine.maxSearchDepth.
+ */
+public class SearchLimits {
+
+	// Deepest iteration to search
+	public int depth;
+	// Stop after about this many nodes
+	public long nodes;
+	// Stop after about this many milliseconds
+	public long millis;
+	// Deadlines for a move played on a clock; made anew for every search
+	public TimeManager time;
+	// Threads searching at once (lazy SMP); 1 if not set
+	public int threads;
+	// Size of the transposition table made for the search, in megabytes
+	// (16 if not set)
+	public int hashMegabytes;
+	// Keep the table made for the search off the heap (see
+	// OffHeapTranspositionTable)
+	public boolean offHeapHash;
+	// Table to use instead of making one; one table can be shared by any
+	// number of searches running at once
+	public TranspositionTable table;
+	// Move orderers to use, one per thread (the calling thread's first),
+	// instead of making them, so that what they learn carries over from one
+	// search to the next; null to start from nothing. A set of orderers must
+	// not be used by two searches at once.
+	public MoveOrderer[] orderers;
+	// Pawn tables to use the same way
+	public PawnTable[] pawnTables;
+	// Where each finished iteration is reported, null for nowhere
+	public PrintStream info;
+	// Selective search (see Engine), all on unless turned off, each on its
+	// own so that what it saves can be measured
+	public boolean nullMove = true;
+	public boolean lateMoveReductions = true;
+	public boolean futility = true;
+	public boolean razoring = true;
+
+	public SearchLimits() {
+	}
+
+	public SearchLimits(int depth) {
+		this.depth = depth;
+	}
+
+	/*
+	 * Copies the limits passed in, so that one search can be given its own
+	 * TimeManager without touching limits other searches read.
+	 */
+	public SearchLimits(SearchLimits other) {
+		depth = other.depth;
+		nodes = other.nodes;
+		millis = other.millis;
+		time = other.time;
+		threads = other.threads;
+		hashMegabytes = other.hashMegabytes;
+		offHeapHash = other.offHeapHash;
+		table = other.table;
+		orderers = other.orderers;
+		pawnTables = other.pawnTables;
+		info = other.info;
+		nullMove = other.nullMove;
+		lateMoveReductions = other.lateMoveReductions;
+		futility = other.futility;
+		razoring = other.razoring;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * What a search (see Engine) found: the best move, its score from the point
+ * of view of the player moving, and the principal variation (the line both
+ * players are expected to play, starting with the best move). Also holds the
+ * depth of the last finished iteration, the nodes searched, the time it
+ * took and the effective branching factor (the nodes of the last iteration
+ * over the nodes of the one before; the lower, the better the move
+ * ordering).
+ */
+public class SearchResult {
+
+	public final int bestMove;
+	public final int score;
+	public final int[] pv;
+	public final int depth;
+	public final long nodes;
+	public final long nanos;
+	public final double branchingFactor;
+
+	public SearchResult(int bestMove, int score, int[] pv, int depth, long nodes, long nanos, double branchingFactor) {
+		this.bestMove = bestMove;
+		this.score = score;
+		this.pv = pv;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.nanos = nanos;
+		this.branchingFactor = branchingFactor;
+	}
+
+	public boolean isMate() {
+		return Math.abs(score) >= Engine.MATE - Engine.maxSearchDepth;
+	}
+
+	public long nodesPerSecond() {
+		return nanos == 0 ? 0 : (long) (nodes / (nanos / chessInterface.NANOS_PER_SEC));
+	}
+
+	@Override
+	/*
+	 * Returns the result the way an analysis line is usually shown:
+	 * "depth 6 score cp 35 nodes 123456 nps 2000000 time 61 ebf 3.10 pv e2e4 e7e5".
+	 * Mate scores are shown as "mate 3" (moves, negative if the player moving
+	 * is mated).
+	 */
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		s.append("depth ").append(depth).append(" score ");
+		if (isMate()) {
+			int plies = Engine.MATE - Math.abs(score);
+			s.append("mate ").append(score > 0 ? (plies + 1) / 2 : -(plies / 2));
+		}
+		else {
+			s.append("cp ").append(score);
+		}
+		s.append(" nodes ").append(nodes);
+		s.append(" nps ").append(nodesPerSecond());
+		s.append(" time ").append(nanos / 1000000);
+		s.append(String.format(" ebf %.2f", branchingFactor));
+		s.append(" pv");
+		for (int move : pv) {
+			s.append(' ').append(Move.toString(move));
+		}
+		return s.toString();
+	}
+}
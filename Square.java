@@ -1,10 +1,14 @@
 public class Square {
 	
 	public final String name;
+	public final int index;
 	public Piece occupiedBy;
+	private final Board board;
 	
-	public Square (String n) {
+	public Square (String n, int i, Board b) {
 		name = n;
+		index = i;
+		board = b;
 		occupiedBy = null;
 	}
 	
@@ -12,11 +16,16 @@ public class Square {
 	 * This method updates squares involved after a move. The old square's
 	 * occupiedBy instance var is changed to null and the new square's occupiedBy
 	 * instance var is changed to the piece that moved passed in as a parameter.
+	 * The bitboard core of the board is updated the same way; whatever piece
+	 * stood on this square before is dropped from it.
 	 */
 	public void changePieceOccupied(Piece piece, Square oldPos) {
+		board.clearSquare(index);
 		occupiedBy = piece;
+		board.putPiece(piece.code, index);
 		if (oldPos != null) {
 			oldPos.occupiedBy = null;
+			board.clearSquare(oldPos.index);
 		}
 		piece.position = this;
 	}
@@ -1,41 +0,0 @@
-public class Stopwatch
-{
-    private static long startTime;
-    private static long stopTime;
-
-    public static final double NANOS_PER_SEC = 1000000000.0;
-
-	/**
-	 start the stop watch.
-	*/
-	public static void start(){
-		startTime = System.nanoTime();
-	}
-
-	/**
-	 stop the stop watch.
-	*/
-	
-	public static void stop()
-	{	
-		stopTime = System.nanoTime();
-	}
-
-	/**
-	elapsed time in seconds.
-	@return the time recorded on the stopwatch in seconds
-	*/
-	public static double time()
-	{	return (stopTime - startTime) / NANOS_PER_SEC;	}
-
-	public String toString(){
-	    return "elapsed time: " + time() + " seconds.";
-	}
-
-	/**
-	elapsed time in nanoseconds.
-	@return the time recorded on the stopwatch in nanoseconds
-	*/
-	public static long timeInNanoseconds()
-	{	return (stopTime - startTime);	}
-}
\ No newline at end of file
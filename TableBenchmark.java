@@ -0,0 +1,74 @@
+import java.util.Random;
+
+/*
+ * Compares the probe time of the transposition table on the heap (a long
+ * array) with the one off the heap (direct byte buffers). Both tables get
+ * the same size and are filled with the same entries; then the same random
+ * keys, half of them stored and half not, are probed in each, a few rounds
+ * to warm up and a few to measure.
+ *
+ * Usage: java TableBenchmark [megabytes] [probes]   (256 and 10000000 if
+ *                                                    not given)
+ */
+public class TableBenchmark {
+
+	private final static int defaultMegabytes = 256;
+	private final static int defaultProbes = 10000000;
+	private final static int warmupRounds = 3;
+	private final static int measuredRounds = 5;
+	private final static long seed = 20240229L;
+
+	// Results are folded in here so the JIT cannot drop the probes
+	private static long sink;
+
+	public static void main(String[] args) {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : defaultMegabytes;
+		int probes = args.length > 1 ? Integer.parseInt(args[1]) : defaultProbes;
+		Random r = new Random(seed);
+		long[] stored = new long[probes / 2];
+		for (int i = 0; i < stored.length; i++) {
+			stored[i] = r.nextLong();
+		}
+		long[] keys = new long[probes];
+		for (int i = 0; i < probes; i++) {
+			keys[i] = i % 2 == 0 ? stored[r.nextInt(stored.length)] : r.nextLong();
+		}
+		TranspositionTable[] tables = {new TranspositionTable(megabytes), new OffHeapTranspositionTable(megabytes)};
+		String[] names = {"long[]", "off-heap"};
+		for (int t = 0; t < tables.length; t++) {
+			TranspositionTable table = tables[t];
+			table.newSearch();
+			for (long key : stored) {
+				table.store(key, Move.make(12, 28, 0, Move.DOUBLE_PUSH), 35, 8, TranspositionTable.EXACT);
+			}
+			for (int round = 0; round < warmupRounds; round++) {
+				probeAll(table, keys);
+			}
+			long start = System.nanoTime();
+			int hits = 0;
+			for (int round = 0; round < measuredRounds; round++) {
+				hits = probeAll(table, keys);
+			}
+			long time = System.nanoTime() - start;
+			System.out.println(String.format("%-9s %5d MB: %6.1f ns/probe, %d of %d probes hit", names[t],
+				table.megabytes(), (double) time / ((long) measuredRounds * probes), hits, probes));
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	private static int probeAll(TranspositionTable table, long[] keys) {
+		int hits = 0;
+		long sum = 0;
+		for (long key : keys) {
+			long entry = table.probe(key);
+			if (entry != 0) {
+				hits++;
+				sum += entry;
+			}
+		}
+		sink += sum;
+		return hits;
+	}
+}
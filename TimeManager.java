@@ -0,0 +1,103 @@
+/*
+ * Decides how long the engine may think about one move, from the time the
+ * player has left on its GameClock. It gives the search two deadlines:
+ *   soft  once it has passed, the search does not start another iteration
+ *         (see Engine.run). It moves while the search runs, later when the
+ *         best move keeps changing or the score drops, earlier when the
+ *         best move has stayed the same for a few iterations.
+ *   hard  the search stops, even in the middle of an iteration. The engine
+ *         looks at the clock only every thousand or so nodes, so this keeps a
+ *         safety margin for that and for playing the move.
+ * The share of the time left to use comes from the moves still to make
+ * before more time is added (a guess when the game is in sudden death) and
+ * the increment.
+ *
+ * A time manager is made for one search, just before it starts; its
+ * deadlines are System.nanoTime values.
+ */
+public class TimeManager {
+
+	private final static long nanosPerMilli = 1000000;
+	// Kept back from every move for polling the clock and playing the move
+	private final static long overhead = 50 * nanosPerMilli;
+	// Moves the time left is split over in sudden death
+	private final static int suddenDeathMovesToGo = 30;
+	// The most of the usable time one move may take, as a fraction:
+	// normally, and at the hard deadline
+	private final static double maxShare = 0.5;
+	private final static double maxHardShare = 0.75;
+	// Hard deadline as a multiple of the normal time for the move
+	private final static double hardFactor = 5;
+	// Soft deadline as a multiple of the normal time for the move: with the
+	// best move stable, plus this for each unit of instability (which grows
+	// by 1 whenever the best move changes and halves every iteration)
+	private final static double stableFactor = 0.6;
+	private final static double instabilityFactor = 0.8;
+	// A score this much lower than the iteration before gives more time
+	private final static int scoreDrop = 30;
+	private final static double scoreDropFactor = 1.3;
+
+	private final long start;
+	private final long optimum;
+	private final long hardDeadline;
+	private long softDeadline;
+	private double instability;
+	private int previousMove;
+	private int previousScore;
+
+	/*
+	 * Plans the search for the move of the player of the color passed in,
+	 * starting now.
+	 */
+	public TimeManager(GameClock clock, boolean white) {
+		if (!clock.isTimed()) {
+			throw new IllegalArgumentException("An untimed clock leaves nothing to manage");
+		}
+		start = System.nanoTime();
+		long usable = Math.max(clock.remaining(white) - overhead, 0);
+		int movesToGo = clock.movesToGo(white) > 0 ? clock.movesToGo(white) : suddenDeathMovesToGo;
+		optimum = Math.min(usable / movesToGo + clock.increment() * 3 / 4, (long) (usable * maxShare));
+		long hard = Math.min((long) (optimum * hardFactor), (long) (usable * maxHardShare));
+		// Even with no time left the first iteration has to finish: a
+		// millisecond is all it gets
+		hardDeadline = start + Math.max(hard, nanosPerMilli);
+		softDeadline = start + (long) (optimum * stableFactor);
+		previousMove = Move.NONE;
+	}
+
+	public long hardDeadline() {
+		return hardDeadline;
+	}
+
+	public long softDeadline() {
+		return softDeadline;
+	}
+
+	/*
+	 * Tells the time manager the result of an iteration that finished, which
+	 * moves the soft deadline.
+	 */
+	public void iterationDone(int bestMove, int score) {
+		instability /= 2;
+		double factor = stableFactor;
+		if (previousMove != Move.NONE) {
+			if (bestMove != previousMove) {
+				instability += 1;
+			}
+			factor += instabilityFactor * instability;
+			if (score < previousScore - scoreDrop) {
+				factor *= scoreDropFactor;
+			}
+		}
+		previousMove = bestMove;
+		previousScore = score;
+		softDeadline = Math.min(start + (long) (optimum * factor), hardDeadline);
+	}
+
+	/*
+	 * Returns true if the search should not start another iteration.
+	 */
+	public boolean pastSoftDeadline() {
+		return System.nanoTime() >= softDeadline;
+	}
+}
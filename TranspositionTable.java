@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/*
+ * This is the table of positions already searched. It has a fixed size,
+ * given in megabytes, and can be shared by every search thread and every
+ * search in the program. An entry is found by the position's key
+ * (Board.zobristKey) and holds what a search found there packed into one
+ * long:
+ *   bits 0-18:  best move (packed as in Move), 0 if none
+ *   bits 19-34: score
+ *   bits 35-42: depth searched
+ *   bits 43-44: bound (LOWER, UPPER or EXACT), never 0 in a stored entry
+ *   bits 45-52: age (the search that stored it, see newSearch)
+ *
+ * The table is made of buckets of two slots; a position goes in the bucket
+ * its key's low bits give. A slot is two longs: the entry, and the key XORed
+ * with the entry. There are no locks. Two threads writing the same slot at
+ * once can leave the key word of one write with the entry word of the other;
+ * reading the slot back then gives a key that matches neither position, so
+ * the mix is simply a miss.
+ *
+ * When a bucket is full, the entry stored replaces the one for the same
+ * position if there is one, otherwise the one left by an older search,
+ * otherwise the one searched least deep.
+ *
+ * The slots are reached through read and write only, so a subclass can keep
+ * them somewhere other than a long array.
+ */
+public class TranspositionTable {
+
+	// The real score is at least the score stored (the search failed high)
+	public final static int LOWER = 1;
+	// The real score is at most the score stored (the search failed low)
+	public final static int UPPER = 2;
+	public final static int EXACT = 3;
+
+	private final static int SCORE_SHIFT = 19;
+	private final static int DEPTH_SHIFT = 35;
+	private final static int BOUND_SHIFT = 43;
+	private final static int AGE_SHIFT = 45;
+	private final static long MOVE_MASK = (1L << SCORE_SHIFT) - 1;
+	private final static int AGE_MASK = 0xFF;
+	// Two slots of two longs
+	protected final static int slotsPerBucket = 2;
+	protected final static int longsPerBucket = 2 * slotsPerBucket;
+	protected final static int bytesPerBucket = longsPerBucket * Long.BYTES;
+	// Most buckets a long array can hold
+	protected final static int maxHeapBuckets = 1 << 28;
+	private final static int bytesPerMegabyte = 1 << 20;
+	// Slots looked at by usage()
+	private final static int usageSample = 1000;
+
+	protected final int buckets;
+	private final int bucketMask;
+	private final long[] slots;
+	private volatile int age;
+
+	/*
+	 * Makes a table taking at most the megabytes passed in (at least one
+	 * bucket).
+	 */
+	public TranspositionTable(int megabytes) {
+		this(bucketsFor(megabytes, maxHeapBuckets), true);
+	}
+
+	/*
+	 * Makes a table of the number of buckets passed in, which must be a power
+	 * of two. Subclasses keeping the slots somewhere else pass onHeap false
+	 * and override read, write and clear.
+	 */
+	protected TranspositionTable(int bucketCount, boolean onHeap) {
+		buckets = bucketCount;
+		bucketMask = bucketCount - 1;
+		slots = onHeap ? new long[bucketCount * longsPerBucket] : null;
+	}
+
+	/*
+	 * Returns the largest power of two number of buckets fitting in the
+	 * megabytes passed in, at most the number passed in.
+	 */
+	protected static int bucketsFor(int megabytes, int most) {
+		long fit = (long) megabytes * bytesPerMegabyte / bytesPerBucket;
+		if (fit < 1) {
+			return 1;
+		}
+		return (int) Math.min(Long.highestOneBit(fit), most);
+	}
+
+	/*
+	 * Returns the long at the index passed in: bucket b holds indexes
+	 * b * longsPerBucket up to (b + 1) * longsPerBucket - 1.
+	 */
+	protected long read(long index) {
+		return slots[(int) index];
+	}
+
+	protected void write(long index, long value) {
+		slots[(int) index] = value;
+	}
+
+	/*
+	 * Empties the table. Not to be called while a search is using it.
+	 */
+	public void clear() {
+		Arrays.fill(slots, 0);
+	}
+
+	/*
+	 * Marks the start of a new search: entries stored from now on are newer
+	 * than every entry already in the table, which become the first to be
+	 * replaced.
+	 */
+	public void newSearch() {
+		age = (age + 1) & AGE_MASK;
+	}
+
+	public int megabytes() {
+		return (int) ((long) buckets * bytesPerBucket / bytesPerMegabyte);
+	}
+
+	/*
+	 * Returns the entry stored for the key passed in, 0 if there is none.
+	 */
+	public long probe(long key) {
+		long base = (long) ((int) key & bucketMask) * longsPerBucket;
+		for (long i = base; i < base + longsPerBucket; i += 2) {
+			long entry = read(i + 1);
+			if (entry != 0 && (read(i) ^ entry) == key) {
+				return entry;
+			}
+		}
+		return 0;
+	}
+
+	/*
+	 * Stores what a search found for the position with the key passed in. A
+	 * result without a move keeps the move already stored for the position.
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		long base = (long) ((int) key & bucketMask) * longsPerBucket;
+		int currentAge = age;
+		long victim = base;
+		int victimWorth = Integer.MAX_VALUE;
+		for (long i = base; i < base + longsPerBucket; i += 2) {
+			long entry = read(i + 1);
+			if (entry != 0 && (read(i) ^ entry) == key) {
+				if (move == Move.NONE) {
+					move = move(entry);
+				}
+				victim = i;
+				break;
+			}
+			// Empty slots are worth nothing, entries from older searches
+			// less than any entry of this one
+			int worth = entry == 0 ? Integer.MIN_VALUE
+				: depth(entry) - (age(entry) == currentAge ? 0 : AGE_MASK + 1);
+			if (worth < victimWorth) {
+				victim = i;
+				victimWorth = worth;
+			}
+		}
+		long entry = pack(move, score, depth, bound, currentAge);
+		write(victim + 1, entry);
+		write(victim, key ^ entry);
+	}
+
+	/*
+	 * Returns how full the table is, in thousandths, counting only entries
+	 * of the current search in the first slots.
+	 */
+	public int usage() {
+		int sample = (int) Math.min(usageSample, (long) buckets * slotsPerBucket);
+		int used = 0;
+		for (int i = 0; i < sample; i++) {
+			long entry = read(2L * i + 1);
+			if (entry != 0 && age(entry) == age) {
+				used++;
+			}
+		}
+		return used * 1000 / sample;
+	}
+
+	public static long pack(int move, int score, int depth, int bound, int age) {
+		return move | ((long) (score & 0xFFFF) << SCORE_SHIFT) | ((long) depth << DEPTH_SHIFT)
+			| ((long) bound << BOUND_SHIFT) | ((long) age << AGE_SHIFT);
+	}
+
+	public static int move(long entry) {
+		return (int) (entry & MOVE_MASK);
+	}
+
+	public static int score(long entry) {
+		return (short) (entry >>> SCORE_SHIFT);
+	}
+
+	public static int depth(long entry) {
+		return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+	}
+
+	public static int bound(long entry) {
+		return (int) (entry >>> BOUND_SHIFT) & 0x3;
+	}
+
+	public static int age(long entry) {
+		return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+	}
+}
@@ -0,0 +1,44 @@
+import java.util.Random;
+
+/*
+ * This class holds the random numbers behind the board's position key. The
+ * key of a position is the XOR of one number per piece on its square, one
+ * for the castling rights still held, one for the file of the en passant
+ * square (if there is one) and one more if black is to move. Because XOR
+ * undoes itself, the board keeps the key up to date with a few XORs per
+ * move instead of hashing the whole board again. The numbers come from a
+ * fixed seed, so the same position gets the same key in every run.
+ */
+public class Zobrist implements chessInterface {
+
+	// One number per piece code and square
+	public final static long[][] PIECE_SQUARE = new long[numPlayers * numPieceTypes][numSquares];
+	// The same numbers for pawns only, 0 for every other piece: the pawn key
+	// of a position is the XOR of these, so it changes only when a pawn
+	// comes, goes or moves
+	public final static long[][] PAWN_SQUARE = new long[numPlayers * numPieceTypes][numSquares];
+	// One number per set of castling rights
+	public final static long[] CASTLING = new long[ALL_CASTLING + 1];
+	// One number per file of the en passant square
+	public final static long[] EN_PASSANT = new long[numColumns];
+	public final static long BLACK_TO_MOVE;
+
+	private final static long SEED = 0x5EED_C4E55L;
+
+	static {
+		Random random = new Random(SEED);
+		for (int code = 0; code < PIECE_SQUARE.length; code++) {
+			for (int sq = 0; sq < numSquares; sq++) {
+				PIECE_SQUARE[code][sq] = random.nextLong();
+				PAWN_SQUARE[code][sq] = code % numPieceTypes == PAWN ? PIECE_SQUARE[code][sq] : 0;
+			}
+		}
+		for (int i = 0; i < CASTLING.length; i++) {
+			CASTLING[i] = random.nextLong();
+		}
+		for (int i = 0; i < EN_PASSANT.length; i++) {
+			EN_PASSANT[i] = random.nextLong();
+		}
+		BLACK_TO_MOVE = random.nextLong();
+	}
+}
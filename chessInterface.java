@@ -3,6 +3,7 @@ public interface chessInterface {
 	// MAGIC NUMBERS
 	final static int numRows = 8;
 	final static int numColumns = 8;
+	final static int numSquares = 64;
 	final static int sizeOfInput = 3;
 	final static int sizeOfLoc = 2;
 	final static int secondsInHour = 3600;
@@ -26,7 +27,40 @@ public interface chessInterface {
 	final static String pawnPromotion = "=";
 	final static String check = "+";
 	final static String checkMate = "++";
-	final Board board = new Board();
 	final static boolean REAL_MOVE = true;
 	final static boolean WHITE = true;
+	
+	// BITBOARD CORE
+	// Piece types, used to index the board's bitboards. A piece code is the
+	// type plus numPieceTypes for black pieces.
+	final static int numPieceTypes = 6;
+	final static int PAWN = 0;
+	final static int KNIGHT = 1;
+	final static int BISHOP = 2;
+	final static int ROOK = 3;
+	final static int QUEEN = 4;
+	final static int KING = 5;
+	final static int EMPTY = -1;
+	final static int WHITE_SIDE = 0;
+	final static int BLACK_SIDE = 1;
+	// Piece names indexed by piece type
+	final static char[] pieceNames = {pawnName, knightName, bishopName, rookName, queenName, kingName};
+	// The usual start position as a FEN record (see Board.setUpPosition)
+	final static String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	// Castling rights, one bit each
+	final static int WHITE_KINGSIDE = 1;
+	final static int WHITE_QUEENSIDE = 2;
+	final static int BLACK_KINGSIDE = 4;
+	final static int BLACK_QUEENSIDE = 8;
+	final static int ALL_CASTLING = 15;
+	// Room for every legal move in any position (the most known is 218)
+	final static int maxMoves = 256;
+	// Deepest the board's undo stack goes (moves made and not yet taken back)
+	final static int maxPly = 256;
+	// For turning System.nanoTime differences into seconds
+	final static double NANOS_PER_SEC = 1000000000.0;
+	
+	// SEARCH
+	// Material value of each piece type in centipawns, indexed by piece type
+	final static int[] pieceValues = {100, 320, 330, 500, 900, 0};
 }
\ No newline at end of file